@@ -9,6 +9,19 @@ db.vehicles.drop();
 db.drivers.drop();
 db.telemetry.drop();
 
+// Telemetry is a time-series collection (matches neurofleetx.telemetry.timeseries.* defaults)
+db.createCollection("telemetry", {
+  timeseries: {
+    timeField: "recordedAt",
+    metaField: "vehicleId",
+    granularity: "seconds",
+  },
+});
+
+// Telemetry indexes (the backend also creates them at startup)
+db.telemetry.createIndex({ vehicleId: 1, recordedAt: 1, _id: 1 });
+db.telemetry.createIndex({ recordedAt: 1 });
+
 // Insert sample vehicles
 db.vehicles.insertMany([
   {
@@ -62,25 +75,25 @@ db.telemetry.insertMany([
   {
     vehicleId: vehicles[0]._id.toString(),
     driverId: drivers[0]._id.toString(),
-    latitude: NumberDecimal("37.7749295"),
-    longitude: NumberDecimal("-122.4194155"),
-    speed: NumberDecimal("45.50"),
+    latitude: 37.7749295,
+    longitude: -122.4194155,
+    speed: 45.50,
     recordedAt: new Date(),
   },
   {
     vehicleId: vehicles[1]._id.toString(),
     driverId: drivers[1]._id.toString(),
-    latitude: NumberDecimal("37.7849295"),
-    longitude: NumberDecimal("-122.4294155"),
-    speed: NumberDecimal("30.25"),
+    latitude: 37.7849295,
+    longitude: -122.4294155,
+    speed: 30.25,
     recordedAt: new Date(),
   },
   {
     vehicleId: vehicles[2]._id.toString(),
     driverId: drivers[2]._id.toString(),
-    latitude: NumberDecimal("37.7949295"),
-    longitude: NumberDecimal("-122.4394155"),
-    speed: NumberDecimal("0.00"),
+    latitude: 37.7949295,
+    longitude: -122.4394155,
+    speed: 0.0,
     recordedAt: new Date(),
   },
 ]);
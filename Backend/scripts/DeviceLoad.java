@@ -0,0 +1,160 @@
+import com.neurofleetx.entity.Telemetry;
+import com.neurofleetx.service.TelemetryDeviceListener;
+import com.neurofleetx.service.TelemetryService;
+import com.neurofleetx.util.DeviceFrameCodec;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load generator for the binary device listener (see README, "Binary device ingestion").
+ *
+ * Streams position frames over several TCP connections as fast as the listener accepts them.
+ * Against a running backend it reports the send rate; compare with framesReceived in
+ * GET /api/telemetry/ingest-stats. With --in-process it starts a TelemetryDeviceListener itself with
+ * storage replaced by a counter (optionally sleeping per batch to stand in for a slow database), and
+ * reports frames stored per second end to end plus the listener's counters.
+ *
+ *   mvn -q compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp "target/classes:$(cat target/cp.txt)" scripts/DeviceLoad.java --in-process
+ *
+ * Options: --host (localhost) --port (5055) --connections (4) --frames (1000000 per connection)
+ * --in-process --workers (4) --queue (1000) --store-delay-ms (0)
+ */
+public class DeviceLoad {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String host = options.getOrDefault("host", "localhost");
+        int port = Integer.parseInt(options.getOrDefault("port", "5055"));
+        int connections = Integer.parseInt(options.getOrDefault("connections", "4"));
+        long frames = Long.parseLong(options.getOrDefault("frames", "1000000"));
+
+        CountingStore store = null;
+        TelemetryDeviceListener listener = null;
+        if (options.containsKey("in-process")) {
+            store = new CountingStore(Long.parseLong(options.getOrDefault("store-delay-ms", "0")));
+            listener = new TelemetryDeviceListener();
+            set(listener, "telemetryService", store);
+            set(listener, "enabled", true);
+            set(listener, "port", port);
+            set(listener, "workers", Integer.parseInt(options.getOrDefault("workers", "4")));
+            set(listener, "queueCapacity", Integer.parseInt(options.getOrDefault("queue", "1000")));
+            listener.start();
+        }
+
+        byte[] frame = DeviceFrameCodec.encode(
+                new Telemetry("65a1b2c3d4e5f60718293a4b", "65a1b2c3d4e5f60718293a4c", 12.9716123, 77.5946456, 42.5),
+                System.currentTimeMillis());
+        // Write in chunks of many frames, as a gateway multiplexing many trackers would
+        int framesPerChunk = 4096;
+        byte[] chunk = new byte[frame.length * framesPerChunk];
+        for (int i = 0; i < framesPerChunk; i++) {
+            System.arraycopy(frame, 0, chunk, i * frame.length, frame.length);
+        }
+        long chunks = Math.max(1, frames / framesPerChunk);
+        long total = chunks * framesPerChunk * connections;
+
+        long start = System.nanoTime();
+        List<Thread> senders = new ArrayList<>();
+        for (int c = 0; c < connections; c++) {
+            Thread sender = new Thread(() -> {
+                try (Socket socket = new Socket(host, port)) {
+                    OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 1 << 16);
+                    for (long i = 0; i < chunks; i++) {
+                        out.write(chunk);
+                    }
+                    out.flush();
+                } catch (Exception e) {
+                    System.err.println("Sender failed: " + e.getMessage());
+                }
+            });
+            sender.start();
+            senders.add(sender);
+        }
+        for (Thread sender : senders) {
+            sender.join();
+        }
+        double sendSeconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Frame size %d bytes; sent %d frames over %d connections in %.2f s (%.0f frames/s)%n",
+                frame.length, total, connections, sendSeconds, total / sendSeconds);
+
+        if (store != null) {
+            long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(5);
+            while (store.stored.get() < total && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("Stored %d frames in %.2f s (%.0f frames/s)%n",
+                    store.stored.get(), seconds, store.stored.get() / seconds);
+            System.out.println("Listener stats: " + listener.getStats());
+            listener.stop();
+        }
+    }
+
+    // Stands in for MongoDB: counts points, optionally taking storeDelayMillis per call
+    static class CountingStore extends TelemetryService {
+        final AtomicLong stored = new AtomicLong();
+        private final long storeDelayMillis;
+
+        CountingStore(long storeDelayMillis) {
+            this.storeDelayMillis = storeDelayMillis;
+        }
+
+        @Override
+        public boolean submitTelemetry(Telemetry telemetry) {
+            store(1);
+            return true;
+        }
+
+        @Override
+        public boolean offerTelemetry(Telemetry telemetry) {
+            // Report "not buffered" so a multi-frame read goes through createTelemetryBatch as one call
+            return false;
+        }
+
+        @Override
+        public Map<Integer, String> createTelemetryBatch(List<Telemetry> telemetry) {
+            store(telemetry.size());
+            return Map.of();
+        }
+
+        private void store(int points) {
+            if (storeDelayMillis > 0) {
+                try {
+                    Thread.sleep(storeDelayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            stored.addAndGet(points);
+        }
+    }
+
+    private static void set(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i].replaceFirst("^--", "");
+            if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                options.put(name, args[++i]);
+            } else {
+                options.put(name, "true");
+            }
+        }
+        return options;
+    }
+}
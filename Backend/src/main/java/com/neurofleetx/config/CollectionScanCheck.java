@@ -0,0 +1,179 @@
+package com.neurofleetx.config;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports queries that MongoDB answers with a collection scan.
+ *
+ * Listens to the driver's commands and, the first time a query shape (collection, command, filter
+ * fields and operators, sort) is seen, explains it on a background thread and logs a warning if the
+ * winning plan contains a COLLSCAN stage. Every repository query is covered as soon as it runs.
+ * Queries without a filter (listing a whole collection) and _id lookups are skipped.
+ */
+@Configuration
+@SuppressWarnings("null")
+public class CollectionScanCheck implements CommandListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CollectionScanCheck.class);
+
+    // Command name -> field holding its filter
+    private static final Map<String, String> FILTER_FIELDS = Map.of(
+            "find", "filter", "count", "query", "distinct", "query", "findAndModify", "query");
+    // Session and transport fields that explain does not accept
+    private static final Set<String> SKIPPED_FIELDS = Set.of("lsid", "txnNumber", "readConcern", "writeConcern");
+
+    @Autowired
+    private ObjectProvider<MongoTemplate> mongoTemplate;
+
+    @Value("${neurofleetx.mongo.collscan-check.enabled:true}")
+    private boolean enabled;
+
+    @Value("${neurofleetx.mongo.collscan-check.max-shapes:1000}")
+    private int maxShapes;
+
+    // Shapes already explained (or queued), true when the plan scans the collection
+    private final Map<String, Boolean> shapes = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor explainer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(100), runnable -> {
+                Thread thread = new Thread(runnable, "collscan-check");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+    private volatile boolean started;
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer collectionScanCheckListener() {
+        return builder -> builder.addCommandListener(this);
+    }
+
+    // Called once the declared indexes exist; plans seen before that would not be representative
+    public void start() {
+        started = enabled;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        String filterField = FILTER_FIELDS.get(event.getCommandName());
+        if (!started || filterField == null) {
+            return;
+        }
+        BsonDocument command = event.getCommand();
+        BsonValue filter = command.get(filterField);
+        if (filter == null || !filter.isDocument() || filter.asDocument().isEmpty()
+                || filter.asDocument().keySet().equals(Set.of("_id"))) {
+            return;
+        }
+
+        StringBuilder shape = new StringBuilder()
+                .append(command.get(event.getCommandName()).isString() ? command.getString(event.getCommandName()).getValue() : "?")
+                .append(' ').append(event.getCommandName()).append(' ');
+        appendShape(filter, shape);
+        if (command.get("sort") != null) {
+            shape.append(" sort ").append(command.get("sort").asDocument().toJson());
+        }
+        String key = shape.toString();
+        if (shapes.size() >= maxShapes || shapes.putIfAbsent(key, false) != null) {
+            return;
+        }
+        // The event's document is only valid during this call
+        BsonDocument copy = command.clone();
+        String database = event.getDatabaseName();
+        explainer.execute(() -> explain(database, copy, key));
+    }
+
+    private void explain(String database, BsonDocument command, String shape) {
+        BsonDocument explained = new BsonDocument();
+        command.forEach((field, value) -> {
+            if (!field.startsWith("$") && !SKIPPED_FIELDS.contains(field)) {
+                explained.append(field, value);
+            }
+        });
+        try {
+            Document plan = mongoTemplate.getObject().getMongoDatabaseFactory().getMongoDatabase(database)
+                    .runCommand(new BsonDocument("explain", explained).append("verbosity", new BsonString("queryPlanner")));
+            if (scansCollection(plan, false)) {
+                shapes.put(shape, true);
+                log.warn("Query falls back to a collection scan (COLLSCAN); declare an index for it: {}", shape);
+            }
+        } catch (RuntimeException e) {
+            log.debug("Could not explain {}: {}", shape, e.getMessage());
+        }
+    }
+
+    // Field names and operators of a filter, with every value replaced by ?
+    private static void appendShape(BsonValue value, StringBuilder shape) {
+        if (value.isDocument()) {
+            shape.append('{');
+            value.asDocument().forEach((field, nested) -> {
+                if (shape.charAt(shape.length() - 1) != '{') {
+                    shape.append(", ");
+                }
+                shape.append(field).append(": ");
+                appendShape(nested, shape);
+            });
+            shape.append('}');
+        } else if (value.isArray() && isDocumentArray(value.asArray())) {
+            // $and / $or / $nor branches
+            shape.append('[');
+            value.asArray().forEach(nested -> {
+                if (shape.charAt(shape.length() - 1) != '[') {
+                    shape.append(", ");
+                }
+                appendShape(nested, shape);
+            });
+            shape.append(']');
+        } else {
+            shape.append('?');
+        }
+    }
+
+    private static boolean isDocumentArray(BsonArray array) {
+        return !array.isEmpty() && array.stream().allMatch(BsonValue::isDocument);
+    }
+
+    // Looks for a COLLSCAN stage below any winningPlan (plain, sharded, SBE and time-series layouts)
+    @SuppressWarnings("unchecked")
+    private static boolean scansCollection(Object node, boolean inWinningPlan) {
+        if (node instanceof Map<?, ?> map) {
+            if (inWinningPlan && "COLLSCAN".equals(map.get("stage"))) {
+                return true;
+            }
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) map).entrySet()) {
+                boolean winning = inWinningPlan || "winningPlan".equals(entry.getKey());
+                if (!"rejectedPlans".equals(entry.getKey()) && scansCollection(entry.getValue(), winning)) {
+                    return true;
+                }
+            }
+        } else if (node instanceof List<?> list) {
+            for (Object item : list) {
+                if (scansCollection(item, inWinningPlan)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,127 @@
+package com.neurofleetx.config;
+
+import com.neurofleetx.entity.Booking;
+import com.neurofleetx.entity.Customer;
+import com.neurofleetx.entity.Driver;
+import com.neurofleetx.entity.FleetManager;
+import com.neurofleetx.entity.NotificationPreference;
+import com.neurofleetx.entity.Route;
+import com.neurofleetx.entity.Telemetry;
+import com.neurofleetx.entity.TelemetryRollup;
+import com.neurofleetx.entity.User;
+import com.neurofleetx.entity.Vehicle;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import org.bson.Document;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the indexes declared on entities (@Indexed / @CompoundIndex).
+ * Spring's auto-index-creation is left off: it would create the telemetry collection
+ * as a regular collection before TelemetryCollectionConfig can make it time-series.
+ * Index builds run on a background thread so startup does not wait for them; once they are
+ * done, the collection scan check starts looking at query plans.
+ */
+@Configuration
+@DependsOn("telemetryCollectionConfig")
+public class MongoIndexConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexConfig.class);
+
+    private static final List<Class<?>> INDEXED_ENTITIES = List.of(
+            Telemetry.class, TelemetryRollup.class, Driver.class, Vehicle.class, Booking.class, Route.class,
+            Customer.class, User.class, FleetManager.class, NotificationPreference.class);
+
+    // Indexes replaced by a wider declared one; dropped once the replacement exists
+    private static final Map<Class<?>, List<String>> SUPERSEDED_INDEXES = Map.of(
+            Telemetry.class, List.of("vehicle_recorded_at"));
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CollectionScanCheck collectionScanCheck;
+
+    @PostConstruct
+    public void startIndexBuild() {
+        Thread builder = new Thread(() -> {
+            ensureIndexes();
+            collectionScanCheck.start();
+        }, "mongo-index-builder");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    public void ensureIndexes() {
+        IndexResolver resolver = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+        for (Class<?> entity : INDEXED_ENTITIES) {
+            IndexOperations indexOps = mongoTemplate.indexOps(entity);
+            boolean allCreated = true;
+            for (IndexDefinition index : resolver.resolveIndexFor(entity)) {
+                try {
+                    indexOps.createIndex(index);
+                } catch (RuntimeException e) {
+                    allCreated = false;
+                    log.warn("Could not create index {} on {}: {}", index.getIndexKeys(), entity.getSimpleName(), e.getMessage());
+                }
+            }
+            // Keep the old indexes serving queries until their replacements exist
+            if (allCreated) {
+                dropSuperseded(entity, indexOps);
+            }
+        }
+        backfillLocations();
+    }
+
+    private void dropSuperseded(Class<?> entity, IndexOperations indexOps) {
+        List<String> superseded = SUPERSEDED_INDEXES.getOrDefault(entity, List.of());
+        if (superseded.isEmpty()) {
+            return;
+        }
+        try {
+            for (IndexInfo info : indexOps.getIndexInfo()) {
+                if (superseded.contains(info.getName())) {
+                    indexOps.dropIndex(info.getName());
+                    log.info("Dropped superseded index {} on {}", info.getName(), entity.getSimpleName());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not drop superseded indexes on {}: {}", entity.getSimpleName(), e.getMessage());
+        }
+    }
+
+    // Documents saved before the GeoJSON location field existed get it from latitude/longitude,
+    // so the 2dsphere indexes cover them too
+    private void backfillLocations() {
+        Query missing = new Query(Criteria.where("location").exists(false)
+                .and("latitude").ne(null)
+                .and("longitude").ne(null));
+        AggregationUpdate setLocation = AggregationUpdate.update().set("location").toValue(
+                new Document("type", "Point").append("coordinates", List.of("$longitude", "$latitude")));
+        for (Class<?> entity : List.of(Driver.class, Vehicle.class)) {
+            try {
+                long updated = mongoTemplate.updateMulti(missing, setLocation, entity).getModifiedCount();
+                if (updated > 0) {
+                    log.info("Added GeoJSON location to {} {} documents", updated, entity.getSimpleName());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not backfill locations on {}: {}", entity.getSimpleName(), e.getMessage());
+            }
+        }
+    }
+}
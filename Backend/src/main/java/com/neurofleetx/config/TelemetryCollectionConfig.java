@@ -0,0 +1,74 @@
+package com.neurofleetx.config;
+
+import com.neurofleetx.entity.Telemetry;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.CollectionOptions.TimeSeriesOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Creates the telemetry collection as a MongoDB time-series collection on startup.
+ * recordedAt is the time field and vehicleId the meta field, so points are bucketed
+ * per vehicle and per-vehicle history reads only that vehicle's buckets.
+ */
+@Configuration
+public class TelemetryCollectionConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(TelemetryCollectionConfig.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${neurofleetx.telemetry.timeseries.enabled:true}")
+    private boolean timeSeriesEnabled;
+
+    @Value("${neurofleetx.telemetry.timeseries.granularity:seconds}")
+    private String granularity;
+
+    @Value("${neurofleetx.telemetry.timeseries.expire-after:0d}")
+    private Duration expireAfter;
+
+    @PostConstruct
+    public void createTelemetryCollection() {
+        if (!timeSeriesEnabled) {
+            return;
+        }
+        String name = mongoTemplate.getCollectionName(Telemetry.class);
+        try {
+            Document existing = mongoTemplate.getDb().listCollections()
+                    .filter(new Document("name", name))
+                    .first();
+            if (existing != null) {
+                if (!"timeseries".equals(existing.getString("type"))) {
+                    // MongoDB cannot convert a regular collection in place, and nothing here migrates it
+                    log.warn("Collection '{}' already exists as a regular collection; time-series storage not applied", name);
+                }
+                return;
+            }
+
+            // A time-series collection has a single meta field. vehicleId is the one every history query filters on;
+            // driverId stays a measurement so documents keep the same flat shape as before.
+            TimeSeriesOptions options = TimeSeriesOptions.timeSeries("recordedAt")
+                    .metaField("vehicleId")
+                    .granularity(Granularity.valueOf(granularity.toUpperCase(Locale.ROOT)));
+            if (!expireAfter.isZero()) {
+                options = options.expireAfter(expireAfter);
+            }
+            mongoTemplate.createCollection(Telemetry.class, CollectionOptions.empty().timeSeries(options));
+            log.info("Created time-series collection '{}' (granularity={}, expireAfter={})", name, granularity, expireAfter);
+        } catch (RuntimeException e) {
+            // Another instance may have created it first, or Mongo is not reachable yet; neither should block startup
+            log.warn("Could not create time-series collection '{}': {}", name, e.getMessage());
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.neurofleetx.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.neurofleetx.entity.Booking;
+import com.neurofleetx.service.BookingOperationResult;
 import com.neurofleetx.service.BookingService;
+import com.neurofleetx.service.BookingSlot;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
@@ -12,6 +17,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/bookings")
@@ -21,6 +27,12 @@ public class BookingController {
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${neurofleetx.bookings.bulk.max-size:500}")
+    private int maxBulkSize;
+
     // Get all bookings
     @GetMapping
     public ResponseEntity<Map<String, Object>> getAllBookings() {
@@ -31,6 +43,12 @@ public class BookingController {
         return ResponseEntity.ok(response);
     }
 
+    // Stream all bookings as NDJSON (Accept: application/x-ndjson)
+    @GetMapping(produces = NdjsonResponses.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllBookings() {
+        return NdjsonResponses.stream(objectMapper, bookingService::streamAllBookings);
+    }
+
     // Get booking by ID
     @GetMapping("/{id}")
     public ResponseEntity<Map<String, Object>> getBookingById(@PathVariable("id") String id) {
@@ -67,11 +85,7 @@ public class BookingController {
     // Get active/upcoming bookings for a vehicle
     @GetMapping("/vehicle/{vehicleId}/active")
     public ResponseEntity<Map<String, Object>> getActiveBookingsByVehicle(@PathVariable("vehicleId") String vehicleId) {
-        List<Booking> allBookings = bookingService.getBookingsByVehicle(vehicleId);
-        List<Booking> activeBookings = allBookings.stream()
-            .filter(b -> b.getStatus().matches("pending|confirmed|active"))
-            .filter(b -> b.getEndDate().isAfter(LocalDateTime.now()))
-            .toList();
+        List<Booking> activeBookings = bookingService.getActiveBookingsByVehicle(vehicleId);
         
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
@@ -144,7 +158,9 @@ public class BookingController {
                 return ResponseEntity.badRequest().body(response);
             }
 
-            boolean isAvailable = bookingService.isVehicleAvailable(vehicleId, startDate, endDate);
+            // One lookup answers both whether the vehicle is free and what it clashes with
+            List<BookingSlot> conflicts = bookingService.findConflicts(vehicleId, startDate, endDate, null);
+            boolean isAvailable = conflicts.isEmpty();
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -153,14 +169,9 @@ public class BookingController {
             if (isAvailable) {
                 response.put("message", "✓ Vehicle is available for the selected dates");
             } else {
-                // Get conflicting bookings to show details
-                List<Booking> conflicts = bookingService.getBookingsByVehicle(vehicleId).stream()
-                    .filter(b -> b.getStatus().matches("pending|confirmed|active"))
-                    .filter(b -> b.getStartDate().isBefore(endDate) && b.getEndDate().isAfter(startDate))
-                    .toList();
-                
                 response.put("message", "✗ Vehicle is not available for the selected dates");
                 response.put("conflictCount", conflicts.size());
+                response.put("conflicts", conflicts);
             }
             
             return ResponseEntity.ok(response);
@@ -287,6 +298,30 @@ public class BookingController {
         }
     }
 
+    // Bulk operations take {"bookingIds": [...]} and report the outcome per id in results;
+    // success is true only if every booking was changed
+    @PutMapping("/bulk/confirm")
+    public ResponseEntity<Map<String, Object>> confirmBookings(@RequestBody Map<String, Object> request) {
+        return bulkResponse(request, bookingService::confirmBookings);
+    }
+
+    @PutMapping("/bulk/cancel")
+    public ResponseEntity<Map<String, Object>> cancelBookings(@RequestBody Map<String, Object> request) {
+        return bulkResponse(request, bookingService::cancelBookings);
+    }
+
+    // Also takes driverId, driverName and routeId; pending bookings are confirmed as with a single assignment
+    @PutMapping("/bulk/assign-driver")
+    public ResponseEntity<Map<String, Object>> assignDriverToBookings(@RequestBody Map<String, Object> request) {
+        return bulkResponse(request, ids -> bookingService.assignDriverToBookings(ids,
+                (String) request.get("driverId"), (String) request.get("driverName"), (String) request.get("routeId")));
+    }
+
+    @PostMapping("/bulk/delete")
+    public ResponseEntity<Map<String, Object>> deleteBookings(@RequestBody Map<String, Object> request) {
+        return bulkResponse(request, bookingService::deleteBookings);
+    }
+
     // Get bookings by assigned driver
     @GetMapping("/driver/{driverId}")
     public ResponseEntity<Map<String, Object>> getBookingsByDriver(@PathVariable("driverId") String driverId) {
@@ -348,6 +383,39 @@ public class BookingController {
         }
     }
 
+    private ResponseEntity<Map<String, Object>> bulkResponse(Map<String, Object> request,
+            Function<List<String>, List<BookingOperationResult>> operation) {
+        try {
+            List<String> bookingIds = new ArrayList<>();
+            if (!(request.get("bookingIds") instanceof List<?> ids) || ids.isEmpty()) {
+                throw new IllegalArgumentException("bookingIds must be a non-empty list");
+            }
+            if (ids.size() > maxBulkSize) {
+                throw new IllegalArgumentException("Too many bookings: " + ids.size() + " (max " + maxBulkSize + ")");
+            }
+            for (Object id : ids) {
+                if (!(id instanceof String value) || value.isBlank()) {
+                    throw new IllegalArgumentException("bookingIds must contain booking id strings");
+                }
+                bookingIds.add(value);
+            }
+
+            List<BookingOperationResult> results = operation.apply(bookingIds);
+            long succeeded = results.stream().filter(BookingOperationResult::success).count();
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", succeeded == results.size());
+            response.put("succeeded", succeeded);
+            response.put("failed", results.size() - succeeded);
+            response.put("results", results);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     // Helper method to parse ISO 8601 datetime strings
     private LocalDateTime parseDateTime(String dateTimeStr) {
         try {
@@ -161,6 +161,23 @@ public class CustomerController {
         }
     }
     
+    // Recount every customer's booking counters from the bookings collection
+    @PostMapping("/recount-booking-stats")
+    public ResponseEntity<Map<String, Object>> recountBookingStats() {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            long updated = customerService.recountBookingStats();
+            response.put("success", true);
+            response.put("count", updated);
+            response.put("message", "Recounted booking stats of " + updated + " customers");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+    
     // Get customers by status
     @GetMapping("/status/{status}")
     public ResponseEntity<Map<String, Object>> getCustomersByStatus(@PathVariable String status) {
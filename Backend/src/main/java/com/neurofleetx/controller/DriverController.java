@@ -2,15 +2,19 @@ package com.neurofleetx.controller;
 
 import com.neurofleetx.entity.Driver;
 import com.neurofleetx.service.DriverService;
+import com.neurofleetx.service.LivePositionBroadcaster;
+import com.neurofleetx.service.LiveTrackingDelta;
+import com.neurofleetx.service.NearbyResult;
+import com.neurofleetx.util.GeoUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/drivers")
@@ -20,6 +24,9 @@ public class DriverController {
     @Autowired
     private DriverService driverService;
     
+    @Autowired
+    private LivePositionBroadcaster livePositionBroadcaster;
+    
     @GetMapping
     public ResponseEntity<Map<String, Object>> getAllDrivers() {
         List<Driver> drivers = driverService.getAllDrivers();
@@ -82,25 +89,18 @@ public class DriverController {
             @PathVariable("id") String id, 
             @RequestBody Map<String, Object> locationData) {
         try {
-            return driverService.getDriverById(id)
-                .map(driver -> {
-                    if (locationData.containsKey("latitude")) {
-                        driver.setLatitude(Double.parseDouble(locationData.get("latitude").toString()));
-                    }
-                    if (locationData.containsKey("longitude")) {
-                        driver.setLongitude(Double.parseDouble(locationData.get("longitude").toString()));
-                    }
-                    if (locationData.containsKey("gpsEnabled")) {
-                        driver.setGpsEnabled(Boolean.parseBoolean(locationData.get("gpsEnabled").toString()));
-                    }
-                    if (locationData.containsKey("speed")) {
-                        driver.setCurrentSpeed(Double.parseDouble(locationData.get("speed").toString()));
-                    }
-                    driver.setLastLocationUpdate(LocalDateTime.now());
-                    
-                    Driver updatedDriver = driverService.updateDriver(id, driver);
-                    updatedDriver.setPassword(null);
-                    
+            Double latitude = locationData.get("latitude") != null
+                ? Double.parseDouble(locationData.get("latitude").toString()) : null;
+            Double longitude = locationData.get("longitude") != null
+                ? Double.parseDouble(locationData.get("longitude").toString()) : null;
+            Double speed = locationData.get("speed") != null
+                ? Double.parseDouble(locationData.get("speed").toString()) : null;
+            Boolean gpsEnabled = locationData.get("gpsEnabled") != null
+                ? Boolean.parseBoolean(locationData.get("gpsEnabled").toString()) : null;
+            
+            // One atomic partial update; the returned document already excludes the password
+            return driverService.updateDriverLocation(id, latitude, longitude, speed, gpsEnabled)
+                .map(updatedDriver -> {
                     Map<String, Object> response = new HashMap<>();
                     response.put("success", true);
                     response.put("message", "Location updated successfully");
@@ -121,25 +121,69 @@ public class DriverController {
         }
     }
 
-    // Get drivers with GPS enabled (live tracking)
+    // Nearest GPS-enabled drivers around a point, e.g. a pickup: radiusKm (default 5, max 500),
+    // limit (default 10, max 100) and an optional driver status such as "active"
+    @GetMapping("/nearby")
+    public ResponseEntity<Map<String, Object>> getNearbyDrivers(
+            @RequestParam double latitude,
+            @RequestParam double longitude,
+            @RequestParam(defaultValue = "5") double radiusKm,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String status) {
+        try {
+            GeoUtils.requireValidCoordinates(latitude, longitude);
+            if (radiusKm <= 0 || radiusKm > 500) {
+                throw new IllegalArgumentException("radiusKm must be between 0 and 500");
+            }
+            List<NearbyResult<Driver>> drivers = driverService.findNearbyDrivers(
+                    latitude, longitude, radiusKm * 1000, Math.max(1, Math.min(limit, 100)), status);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", drivers);
+            response.put("count", drivers.size());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to search nearby drivers: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Location ping coalescing counters (pings received vs. documents written)
+    @GetMapping("/location-stats")
+    public ResponseEntity<Map<String, Object>> getLocationWriteStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", driverService.getLocationWriteStats());
+        return ResponseEntity.ok(response);
+    }
+
+    // Get drivers with GPS enabled (live tracking), from the in-memory position store
+    // With since=<version from the previous response> (an opaque cursor), data holds only drivers whose position
+    // or GPS status changed and removed lists drivers that left live tracking; full=true means data is the
+    // complete list
     @GetMapping("/live-tracking")
-    public ResponseEntity<Map<String, Object>> getDriversWithGpsEnabled() {
-        List<Driver> allDrivers = driverService.getAllDrivers();
-        List<Driver> gpsEnabledDrivers = allDrivers.stream()
-            .filter(driver -> driver.getGpsEnabled() != null && driver.getGpsEnabled())
-            .filter(driver -> driver.getLatitude() != null && driver.getLongitude() != null)
-            .collect(Collectors.toList());
-        
-        // Remove passwords from response
-        gpsEnabledDrivers.forEach(driver -> driver.setPassword(null));
+    public ResponseEntity<Map<String, Object>> getDriversWithGpsEnabled(@RequestParam(required = false) String since) {
+        LiveTrackingDelta delta = driverService.getLiveDriverChanges(since);
         
         Map<String, Object> response = new HashMap<>();
         response.put("success", true);
-        response.put("data", gpsEnabledDrivers);
-        response.put("count", gpsEnabledDrivers.size());
+        response.put("data", delta.getDrivers());
+        response.put("count", delta.getDrivers().size());
+        response.put("removed", delta.getRemoved());
+        response.put("version", delta.getVersion());
+        response.put("full", delta.isFull());
         return ResponseEntity.ok(response);
     }
 
+    // Server-Sent Events: a "positions" event with the drivers and vehicles that moved since the last one.
+    // Load /live-tracking once, then apply these updates (active=false means the driver switched GPS off).
+    @GetMapping(value = "/live-tracking/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLivePositions() {
+        return livePositionBroadcaster.subscribe();
+    }
+
     // Toggle GPS enabled status
     @PostMapping("/{id}/toggle-gps")
     public ResponseEntity<Map<String, Object>> toggleGpsStatus(
@@ -152,23 +196,21 @@ public class DriverController {
                         ? Boolean.parseBoolean(data.get("gpsEnabled").toString())
                         : !Boolean.TRUE.equals(driver.getGpsEnabled());
                     
-                    driver.setGpsEnabled(gpsEnabled);
-                    if (!gpsEnabled) {
-                        // Clear location when GPS is disabled
-                        driver.setLatitude(null);
-                        driver.setLongitude(null);
-                        driver.setCurrentSpeed(0.0);
-                    }
-                    driver.setLastLocationUpdate(LocalDateTime.now());
-                    
-                    Driver updatedDriver = driverService.updateDriver(id, driver);
-                    updatedDriver.setPassword(null);
-                    
-                    Map<String, Object> response = new HashMap<>();
-                    response.put("success", true);
-                    response.put("message", gpsEnabled ? "GPS enabled" : "GPS disabled");
-                    response.put("data", updatedDriver);
-                    return ResponseEntity.ok(response);
+                    // Clears the location when GPS is disabled
+                    return driverService.setGpsEnabled(id, gpsEnabled)
+                        .map(updatedDriver -> {
+                            Map<String, Object> response = new HashMap<>();
+                            response.put("success", true);
+                            response.put("message", gpsEnabled ? "GPS enabled" : "GPS disabled");
+                            response.put("data", updatedDriver);
+                            return ResponseEntity.ok(response);
+                        })
+                        .orElseGet(() -> {
+                            Map<String, Object> response = new HashMap<>();
+                            response.put("success", false);
+                            response.put("message", "Driver not found");
+                            return ResponseEntity.badRequest().body(response);
+                        });
                 })
                 .orElseGet(() -> {
                     Map<String, Object> response = new HashMap<>();
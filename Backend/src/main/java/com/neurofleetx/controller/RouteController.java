@@ -1,10 +1,12 @@
 package com.neurofleetx.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.neurofleetx.entity.Route;
 import com.neurofleetx.service.RouteService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.List;
@@ -18,6 +20,9 @@ public class RouteController {
     @Autowired
     private RouteService routeService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     // Get all routes
     @GetMapping
     public ResponseEntity<Map<String, Object>> getAllRoutes() {
@@ -28,6 +33,12 @@ public class RouteController {
         return ResponseEntity.ok(response);
     }
 
+    // Stream all routes as NDJSON (Accept: application/x-ndjson)
+    @GetMapping(produces = NdjsonResponses.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllRoutes() {
+        return NdjsonResponses.stream(objectMapper, routeService::streamAllRoutes);
+    }
+
     // Get route by ID
     @GetMapping("/{id}")
     public ResponseEntity<Map<String, Object>> getRouteById(@PathVariable("id") String id) {
@@ -1,11 +1,23 @@
 package com.neurofleetx.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.neurofleetx.entity.Telemetry;
+import com.neurofleetx.entity.TelemetryRollup;
+import com.neurofleetx.service.TelemetryDeviceListener;
+import com.neurofleetx.service.TelemetryPage;
+import com.neurofleetx.service.TelemetryRollupService;
 import com.neurofleetx.service.TelemetryService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,6 +30,18 @@ public class TelemetryController {
     @Autowired
     private TelemetryService telemetryService;
     
+    @Autowired
+    private TelemetryRollupService telemetryRollupService;
+    
+    @Autowired
+    private TelemetryDeviceListener telemetryDeviceListener;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${neurofleetx.telemetry.batch.max-size:1000}")
+    private int maxBatchSize;
+    
     @GetMapping
     public ResponseEntity<Map<String, Object>> getAllTelemetry() {
         List<Telemetry> telemetry = telemetryService.getAllTelemetry();
@@ -27,13 +51,95 @@ public class TelemetryController {
         return ResponseEntity.ok(response);
     }
     
+    // Same data as above, streamed as NDJSON straight from the Mongo cursor (Accept: application/x-ndjson)
+    @GetMapping(produces = NdjsonResponses.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllTelemetry() {
+        return NdjsonResponses.stream(objectMapper, telemetryService::streamAllTelemetry);
+    }
+    
+    // Paged history: optional from/to (ISO 8601 or epoch millis), limit, the opaque cursor from the previous page,
+    // and simplify=<metres> to drop points that do not change the drawn track by more than that
     @GetMapping("/vehicle/{vehicleId}")
-    public ResponseEntity<Map<String, Object>> getTelemetryByVehicleId(@PathVariable String vehicleId) {
-        List<Telemetry> telemetry = telemetryService.getTelemetryByVehicleId(vehicleId);
-        Map<String, Object> response = new HashMap<>();
-        response.put("success", true);
-        response.put("data", telemetry);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<Map<String, Object>> getTelemetryByVehicleId(
+            @PathVariable String vehicleId,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Double simplify) {
+        try {
+            TelemetryPage page = telemetryService.getTelemetryByVehicleId(
+                    vehicleId,
+                    from != null ? parseDateTime(from) : null,
+                    to != null ? parseDateTime(to) : null,
+                    limit,
+                    after,
+                    simplify);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", page.getData());
+            response.put("count", page.getData().size());
+            response.put("nextCursor", page.getNextCursor());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Invalid history query: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+    
+    // Simplify the stored track of a vehicle in place (Douglas-Peucker); rollups are unaffected
+    @PostMapping("/vehicle/{vehicleId}/compact")
+    public ResponseEntity<Map<String, Object>> compactTrajectory(
+            @PathVariable String vehicleId,
+            @RequestParam double toleranceMeters,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        try {
+            long removed = telemetryService.compactTrajectory(
+                    vehicleId,
+                    from != null ? parseDateTime(from) : null,
+                    to != null ? parseDateTime(to) : null,
+                    toleranceMeters);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Removed " + removed + " redundant points");
+            response.put("removed", removed);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to compact trajectory: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+    
+    // Average/max speed and point counts per minute, hour or day; defaults to the last 24 hours.
+    // Without an explicit resolution the finest one that keeps the row count bounded is used.
+    @GetMapping("/vehicle/{vehicleId}/rollups")
+    public ResponseEntity<Map<String, Object>> getTelemetryRollups(
+            @PathVariable String vehicleId,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) String resolution) {
+        try {
+            LocalDateTime end = to != null ? parseDateTime(to) : LocalDateTime.now();
+            LocalDateTime start = from != null ? parseDateTime(from) : end.minusDays(1);
+            String chosen = telemetryRollupService.chooseResolution(start, end, resolution);
+            List<TelemetryRollup> rollups = telemetryRollupService.getRollups(vehicleId, start, end, chosen);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("resolution", chosen);
+            response.put("data", rollups);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Invalid rollup query: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
     }
     
     @PostMapping
@@ -48,32 +154,16 @@ public class TelemetryController {
     @PostMapping("/update-location")
     public ResponseEntity<Map<String, Object>> updateLocation(@RequestBody Map<String, Object> locationData) {
         try {
-            Telemetry telemetry = new Telemetry();
+            Telemetry telemetry = toTelemetry(locationData);
             
-            // Extract data from request
-            if (locationData.containsKey("vehicleId")) {
-                telemetry.setVehicleId(locationData.get("vehicleId").toString());
-            }
-            if (locationData.containsKey("driverId")) {
-                telemetry.setDriverId(locationData.get("driverId").toString());
-            }
-            if (locationData.containsKey("latitude")) {
-                telemetry.setLatitude(new java.math.BigDecimal(locationData.get("latitude").toString()));
-            }
-            if (locationData.containsKey("longitude")) {
-                telemetry.setLongitude(new java.math.BigDecimal(locationData.get("longitude").toString()));
-            }
-            if (locationData.containsKey("speed")) {
-                telemetry.setSpeed(new java.math.BigDecimal(locationData.get("speed").toString()));
-            }
-            
-            Telemetry savedTelemetry = telemetryService.createTelemetry(telemetry);
+            // In write-behind mode the point is queued and acknowledged with 202 before it reaches Mongo
+            boolean queued = telemetryService.submitTelemetry(telemetry);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("message", "Location updated successfully");
-            response.put("data", savedTelemetry);
-            return ResponseEntity.ok(response);
+            response.put("message", queued ? "Location accepted" : "Location updated successfully");
+            response.put("data", telemetry);
+            return queued ? ResponseEntity.accepted().body(response) : ResponseEntity.ok(response);
         } catch (Exception e) {
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
@@ -82,6 +172,84 @@ public class TelemetryController {
         }
     }
     
+    // Upload many buffered points in one request; persisted with a single unordered bulk insert
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, Object>> createTelemetryBatch(@RequestBody List<Map<String, Object>> points) {
+        if (points.size() > maxBatchSize) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Batch too large: " + points.size() + " points (max " + maxBatchSize + ")");
+            return ResponseEntity.badRequest().body(response);
+        }
+        
+        List<Map<String, Object>> results = new ArrayList<>(points.size());
+        List<Telemetry> valid = new ArrayList<>(points.size());
+        List<Integer> validIndexes = new ArrayList<>(points.size());
+        
+        for (int i = 0; i < points.size(); i++) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("index", i);
+            results.add(result);
+            try {
+                Map<String, Object> point = points.get(i);
+                if (point == null || point.get("vehicleId") == null) {
+                    throw new IllegalArgumentException("vehicleId is required");
+                }
+                valid.add(toTelemetry(point));
+                validIndexes.add(i);
+            } catch (Exception e) {
+                result.put("success", false);
+                result.put("message", e.getMessage());
+            }
+        }
+        
+        Map<Integer, String> failures = telemetryService.createTelemetryBatch(valid);
+        
+        int accepted = 0;
+        for (int j = 0; j < valid.size(); j++) {
+            Map<String, Object> result = results.get(validIndexes.get(j));
+            String error = failures.get(j);
+            if (error == null) {
+                result.put("success", true);
+                result.put("id", valid.get(j).getId());
+                accepted++;
+            } else {
+                result.put("success", false);
+                result.put("message", error);
+            }
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", accepted == points.size());
+        response.put("accepted", accepted);
+        response.put("rejected", points.size() - accepted);
+        response.put("results", results);
+        return ResponseEntity.ok(response);
+    }
+    
+    // Rewrite documents still storing coordinates as Decimal128 into plain doubles
+    @PostMapping("/migrate-coordinates")
+    public ResponseEntity<Map<String, Object>> migrateCoordinates() {
+        long converted = telemetryService.migrateLegacyCoordinates();
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Converted " + converted + " telemetry fields to double");
+        response.put("converted", converted);
+        return ResponseEntity.ok(response);
+    }
+    
+    // Write-behind queue depth and flush latency, plus binary device listener counters
+    @GetMapping("/ingest-stats")
+    public ResponseEntity<Map<String, Object>> getIngestStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        Map<String, Object> stats = new HashMap<>(telemetryService.getIngestStats());
+        stats.put("deviceListener", telemetryDeviceListener.getStats());
+        stats.put("pendingRollupUpdates", telemetryRollupService.getPendingUpdates());
+        response.put("data", stats);
+        return ResponseEntity.ok(response);
+    }
+    
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String, Object>> deleteTelemetry(@PathVariable String id) {
         telemetryService.deleteTelemetry(id);
@@ -90,4 +258,57 @@ public class TelemetryController {
         response.put("message", "Telemetry deleted");
         return ResponseEntity.ok(response);
     }
+    
+    // Build a telemetry point from a loosely typed device payload
+    private Telemetry toTelemetry(Map<String, Object> locationData) {
+        Telemetry telemetry = new Telemetry();
+        
+        if (locationData.containsKey("vehicleId")) {
+            telemetry.setVehicleId(locationData.get("vehicleId").toString());
+        }
+        if (locationData.containsKey("driverId")) {
+            telemetry.setDriverId(locationData.get("driverId").toString());
+        }
+        if (locationData.get("latitude") == null || locationData.get("longitude") == null) {
+            throw new IllegalArgumentException("latitude and longitude are required");
+        }
+        telemetry.setLatitude(toDouble(locationData.get("latitude")));
+        telemetry.setLongitude(toDouble(locationData.get("longitude")));
+        if (locationData.get("speed") != null) {
+            telemetry.setSpeed(toDouble(locationData.get("speed")));
+        }
+        
+        // Buffered uploads carry the time the point was captured on the device
+        Object recordedAt = locationData.containsKey("recordedAt")
+                ? locationData.get("recordedAt") : locationData.get("timestamp");
+        if (recordedAt != null) {
+            telemetry.setRecordedAt(parseDateTime(recordedAt));
+        }
+        
+        return telemetry;
+    }
+    
+    // Jackson already hands us numbers; only fall back to parsing for string payloads
+    private double toDouble(Object value) {
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        return Double.parseDouble(value.toString());
+    }
+    
+    // Accepts epoch milliseconds or ISO 8601 (with or without offset), converted to server local time
+    private LocalDateTime parseDateTime(Object value) {
+        if (value instanceof Number millis) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis.longValue()), ZoneId.systemDefault());
+        }
+        String text = value.toString();
+        if (!text.isEmpty() && text.chars().allMatch(Character::isDigit)) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(text)), ZoneId.systemDefault());
+        }
+        try {
+            return ZonedDateTime.parse(text).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        } catch (Exception e) {
+            return LocalDateTime.parse(text);
+        }
+    }
 }
@@ -1,11 +1,16 @@
 package com.neurofleetx.controller;
 
 import com.neurofleetx.entity.Vehicle;
+import com.neurofleetx.service.LivePosition;
+import com.neurofleetx.service.NearbyResult;
 import com.neurofleetx.service.VehicleService;
+import com.neurofleetx.util.GeoUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,6 +32,69 @@ public class VehicleController {
         return ResponseEntity.ok(response);
     }
     
+    @GetMapping("/positions")
+    public ResponseEntity<Map<String, Object>> getVehiclePositions() {
+        List<LivePosition> positions = vehicleService.getVehiclePositions();
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", positions);
+        response.put("count", positions.size());
+        return ResponseEntity.ok(response);
+    }
+    
+    // Vehicles whose latest position is near a point: radiusKm (default 5, max 500), limit (default 10, max 100)
+    @GetMapping("/nearby")
+    public ResponseEntity<Map<String, Object>> getNearbyVehicles(
+            @RequestParam double latitude,
+            @RequestParam double longitude,
+            @RequestParam(defaultValue = "5") double radiusKm,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            GeoUtils.requireValidCoordinates(latitude, longitude);
+            if (radiusKm <= 0 || radiusKm > 500) {
+                throw new IllegalArgumentException("radiusKm must be between 0 and 500");
+            }
+            List<NearbyResult<LivePosition>> vehicles = vehicleService.findNearbyVehicles(
+                    latitude, longitude, radiusKm * 1000, Math.max(1, Math.min(limit, 100)));
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", vehicles);
+            response.put("count", vehicles.size());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to search nearby vehicles: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+    
+    // Vehicles free for the whole window; start and end are ISO 8601 date-times
+    @GetMapping("/available")
+    public ResponseEntity<Map<String, Object>> getAvailableVehicles(@RequestParam String start, @RequestParam String end) {
+        try {
+            LocalDateTime startDate = parseDateTime(start);
+            LocalDateTime endDate = parseDateTime(end);
+            if (startDate == null || endDate == null) {
+                throw new IllegalArgumentException("Invalid date format. Please use ISO 8601 format.");
+            }
+            if (!startDate.isBefore(endDate)) {
+                throw new IllegalArgumentException("Start date must be before end date");
+            }
+            List<Vehicle> vehicles = vehicleService.getAvailableVehicles(startDate, endDate);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", vehicles);
+            response.put("count", vehicles.size());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to search available vehicles: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<Map<String, Object>> getVehicleById(@PathVariable String id) {
         return vehicleService.getVehicleById(id)
@@ -65,4 +133,17 @@ public class VehicleController {
         response.put("message", "Vehicle deleted");
         return ResponseEntity.ok(response);
     }
+    
+    // Accepts ISO 8601 with or without an offset, as the booking endpoints do
+    private LocalDateTime parseDateTime(String dateTimeStr) {
+        try {
+            return ZonedDateTime.parse(dateTimeStr).toLocalDateTime();
+        } catch (Exception e) {
+            try {
+                return LocalDateTime.parse(dateTimeStr);
+            } catch (Exception ex) {
+                return null;
+            }
+        }
+    }
 }
@@ -1,10 +1,25 @@
 package com.neurofleetx.entity;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 
 @Document(collection = "bookings")
+// findByUserId(AndStatus), findUpcomingBookings
+@CompoundIndex(name = "user_status_start", def = "{'userId': 1, 'status': 1, 'startDate': 1}", background = true)
+// findByVehicleId(AndStatus), findConflictingBookings on servers without the partial index below
+@CompoundIndex(name = "vehicle_status_start", def = "{'vehicleId': 1, 'status': 1, 'startDate': 1}", background = true)
+// findConflictingBookings: only bookings that hold a vehicle (partial $in filters need MongoDB 6.0+)
+@CompoundIndex(name = "occupying_vehicle_start_end", def = "{'vehicleId': 1, 'startDate': 1, 'endDate': 1}",
+        partialFilter = "{'status': {$in: ['pending', 'confirmed', 'active']}}", background = true)
+// findByStatus, streamByStatusIn, busy vehicles of a time window, findByStatusAndStartDateLessThanEqual
+@CompoundIndex(name = "status_start", def = "{'status': 1, 'startDate': 1}", background = true)
+// findByStatusAndEndDateLessThanEqual (automatic completion)
+@CompoundIndex(name = "status_end", def = "{'status': 1, 'endDate': 1}", background = true)
+// findByAssignedDriverId; most bookings have no driver yet
+@CompoundIndex(name = "assigned_driver", def = "{'assignedDriverId': 1}",
+        partialFilter = "{'assignedDriverId': {$exists: true}}", background = true)
 public class Booking {
 
     @Id
@@ -33,7 +48,7 @@ public class Booking {
     private LocalDateTime assignedAt;
 
     // Status and timestamps
-    private String status; // "pending", "confirmed", "active", "completed", "cancelled"
+    private String status; // BookingStatus.value(): "pending", "confirmed", "active", "completed", "cancelled"
     private LocalDateTime createdAt;
     private LocalDateTime confirmedAt;
     private LocalDateTime cancelledAt;
@@ -45,7 +60,7 @@ public class Booking {
 
     public Booking() {
         this.createdAt = LocalDateTime.now();
-        this.status = "pending";
+        this.status = BookingStatus.PENDING.value();
     }
 
     public Booking(String userId, String userName, String vehicleId, String vehicleName,
@@ -58,7 +73,7 @@ public class Booking {
         this.endDate = endDate;
         this.purpose = purpose;
         this.createdAt = LocalDateTime.now();
-        this.status = "pending";
+        this.status = BookingStatus.PENDING.value();
     }
 
     // Getters and Setters
@@ -0,0 +1,58 @@
+package com.neurofleetx.entity;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// Booking lifecycle: pending -> confirmed -> active -> completed, and any non-final status -> cancelled.
+// Stored on Booking as the lowercase value().
+public enum BookingStatus {
+    PENDING,
+    CONFIRMED,
+    ACTIVE,
+    COMPLETED,
+    CANCELLED;
+
+    public String value() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static BookingStatus of(String value) {
+        for (BookingStatus status : values()) {
+            if (status.value().equals(value)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown booking status: " + value);
+    }
+
+    // Pending, confirmed and active bookings hold their vehicle for their time window
+    public boolean isOccupying() {
+        return this == PENDING || this == CONFIRMED || this == ACTIVE;
+    }
+
+    public boolean canTransitionTo(BookingStatus target) {
+        return switch (target) {
+            case CONFIRMED -> this == PENDING;
+            case ACTIVE -> this == CONFIRMED;
+            case COMPLETED -> this == ACTIVE;
+            case CANCELLED -> isOccupying();
+            case PENDING -> false;
+        };
+    }
+
+    // Stored values of the statuses a booking may be in to move to target
+    public static List<String> sourcesOf(BookingStatus target) {
+        return Arrays.stream(values())
+                .filter(status -> status.canTransitionTo(target))
+                .map(BookingStatus::value)
+                .toList();
+    }
+
+    public static List<String> occupyingValues() {
+        return Arrays.stream(values())
+                .filter(BookingStatus::isOccupying)
+                .map(BookingStatus::value)
+                .toList();
+    }
+}
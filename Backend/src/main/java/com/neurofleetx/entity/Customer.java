@@ -30,6 +30,8 @@ public class Customer {
     private String idNumber;
     
     // Account status
+    // findByStatus
+    @Indexed(background = true)
     private String status; // active, inactive, suspended
     private boolean emailVerified;
     private boolean phoneVerified;
@@ -1,10 +1,21 @@
 package com.neurofleetx.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 
 @Document(collection = "drivers")
+// findByUsername, findByUsernameAndLicenseNumber
+@CompoundIndex(name = "username_license", def = "{'username': 1, 'licenseNumber': 1}", background = true)
+// findByLicenseNumber
+@CompoundIndex(name = "license", def = "{'licenseNumber': 1}", background = true)
+// LivePositionSync: drivers whose location changed since the last poll
+@CompoundIndex(name = "last_location_update", def = "{'lastLocationUpdate': 1}", background = true)
 public class Driver {
     
     @Id
@@ -20,6 +31,10 @@ public class Driver {
     private Double rating = 5.0;
     private Double latitude;
     private Double longitude;
+    // GeoJSON copy of latitude/longitude for the 2dsphere index; maintained by the setters below
+    @JsonIgnore
+    @GeoSpatialIndexed(type = GeoSpatialIndexType.GEO_2DSPHERE)
+    private GeoJsonPoint location;
     private Boolean gpsEnabled = false;
     private LocalDateTime lastLocationUpdate;
     private Double currentSpeed = 0.0;
@@ -124,6 +139,7 @@ public class Driver {
     
     public void setLatitude(Double latitude) {
         this.latitude = latitude;
+        updateLocation();
     }
     
     public Double getLongitude() {
@@ -132,6 +148,7 @@ public class Driver {
     
     public void setLongitude(Double longitude) {
         this.longitude = longitude;
+        updateLocation();
     }
 
     public Boolean getGpsEnabled() {
@@ -157,4 +174,12 @@ public class Driver {
     public void setCurrentSpeed(Double currentSpeed) {
         this.currentSpeed = currentSpeed;
     }
+    
+    public GeoJsonPoint getLocation() {
+        return location;
+    }
+    
+    private void updateLocation() {
+        this.location = latitude != null && longitude != null ? new GeoJsonPoint(longitude, latitude) : null;
+    }
 }
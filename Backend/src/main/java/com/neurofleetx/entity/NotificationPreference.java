@@ -1,6 +1,7 @@
 package com.neurofleetx.entity;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "notification_preferences")
@@ -8,6 +9,8 @@ public class NotificationPreference {
     
     @Id
     private String id;
+    // findByUserId, existsByUserId
+    @Indexed(background = true)
     private String userId;
     private boolean emailAlerts;
     private boolean smsNotifications;
@@ -1,10 +1,17 @@
 package com.neurofleetx.entity;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 
 @Document(collection = "routes")
+// findByDriverId, findByDriverIdOrderByAssignedAtDesc
+@CompoundIndex(name = "driver_assigned_at", def = "{'driverId': 1, 'assignedAt': -1}", background = true)
+// find(First)ByDriverIdAndStatus
+@CompoundIndex(name = "driver_status", def = "{'driverId': 1, 'status': 1}", background = true)
+// findByStatus
+@CompoundIndex(name = "status", def = "{'status': 1}", background = true)
 public class Route {
 
     @Id
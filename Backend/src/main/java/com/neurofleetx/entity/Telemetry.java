@@ -1,11 +1,15 @@
 package com.neurofleetx.entity;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Document(collection = "telemetry")
+// Vehicle history pages: filter on vehicleId, sort and keyset on (recordedAt, _id) without a SORT stage
+@CompoundIndex(name = "vehicle_recorded_at_id", def = "{'vehicleId': 1, 'recordedAt': 1, '_id': 1}")
+// Fleet-wide time windows: oldest stored day and vehicles per day for compaction and archiving
+@CompoundIndex(name = "recorded_at", def = "{'recordedAt': 1}")
 public class Telemetry {
     
     @Id
@@ -13,9 +17,12 @@ public class Telemetry {
     
     private String vehicleId;
     private String driverId;
-    private BigDecimal latitude;
-    private BigDecimal longitude;
-    private BigDecimal speed;
+    // Primitive doubles keep the ingest path allocation-free and are stored as 8-byte BSON doubles.
+    // Documents written before this change hold Decimal128 values; they still read back correctly
+    // and can be rewritten in place with TelemetryRepositoryCustom.convertDecimalCoordinates().
+    private double latitude;
+    private double longitude;
+    private double speed;
     private LocalDateTime recordedAt;
     
     // Constructors
@@ -23,7 +30,7 @@ public class Telemetry {
         this.recordedAt = LocalDateTime.now();
     }
     
-    public Telemetry(String vehicleId, String driverId, BigDecimal latitude, BigDecimal longitude, BigDecimal speed) {
+    public Telemetry(String vehicleId, String driverId, double latitude, double longitude, double speed) {
         this.vehicleId = vehicleId;
         this.driverId = driverId;
         this.latitude = latitude;
@@ -57,27 +64,27 @@ public class Telemetry {
         this.driverId = driverId;
     }
     
-    public BigDecimal getLatitude() {
+    public double getLatitude() {
         return latitude;
     }
     
-    public void setLatitude(BigDecimal latitude) {
+    public void setLatitude(double latitude) {
         this.latitude = latitude;
     }
     
-    public BigDecimal getLongitude() {
+    public double getLongitude() {
         return longitude;
     }
     
-    public void setLongitude(BigDecimal longitude) {
+    public void setLongitude(double longitude) {
         this.longitude = longitude;
     }
     
-    public BigDecimal getSpeed() {
+    public double getSpeed() {
         return speed;
     }
     
-    public void setSpeed(BigDecimal speed) {
+    public void setSpeed(double speed) {
         this.speed = speed;
     }
     
@@ -0,0 +1,89 @@
+package com.neurofleetx.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.LocalDateTime;
+
+// Pre-aggregated speed statistics for one vehicle over one minute, hour or day bucket
+@Document(collection = "telemetry_rollups")
+@CompoundIndex(name = "vehicle_resolution_bucket", def = "{'vehicleId': 1, 'resolution': 1, 'bucketStart': 1}")
+public class TelemetryRollup {
+    
+    // "<vehicleId>|<resolution>|<bucketStart>" so ingestion can upsert without a lookup
+    @Id
+    private String id;
+    
+    private String vehicleId;
+    private String resolution; // "minute", "hour", "day"
+    private LocalDateTime bucketStart;
+    private long count;
+    private double speedSum;
+    private double maxSpeed;
+    
+    public TelemetryRollup() {
+    }
+    
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getVehicleId() {
+        return vehicleId;
+    }
+    
+    public void setVehicleId(String vehicleId) {
+        this.vehicleId = vehicleId;
+    }
+    
+    public String getResolution() {
+        return resolution;
+    }
+    
+    public void setResolution(String resolution) {
+        this.resolution = resolution;
+    }
+    
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+    
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+    
+    public long getCount() {
+        return count;
+    }
+    
+    public void setCount(long count) {
+        this.count = count;
+    }
+    
+    public double getSpeedSum() {
+        return speedSum;
+    }
+    
+    public void setSpeedSum(double speedSum) {
+        this.speedSum = speedSum;
+    }
+    
+    public double getMaxSpeed() {
+        return maxSpeed;
+    }
+    
+    public void setMaxSpeed(double maxSpeed) {
+        this.maxSpeed = maxSpeed;
+    }
+    
+    @Transient
+    public double getAverageSpeed() {
+        return count == 0 ? 0.0 : speedSum / count;
+    }
+}
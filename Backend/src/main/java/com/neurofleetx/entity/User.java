@@ -19,6 +19,8 @@ public class User {
     
     private String password;
     private String name;
+    // findByRole
+    @Indexed(background = true)
     private String role; // "fleet_manager" or "driver"
     private String phone;
     private String licenseNumber; // Only for drivers
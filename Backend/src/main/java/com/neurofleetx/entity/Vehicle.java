@@ -1,6 +1,10 @@
 package com.neurofleetx.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 
@@ -15,6 +19,12 @@ public class Vehicle {
     private String status;
     private Double latitude;
     private Double longitude;
+    // GeoJSON copy of latitude/longitude for the 2dsphere index; maintained by the setters below
+    @JsonIgnore
+    @GeoSpatialIndexed(type = GeoSpatialIndexType.GEO_2DSPHERE)
+    private GeoJsonPoint location;
+    // recordedAt of the telemetry point latitude/longitude were last taken from
+    private LocalDateTime positionRecordedAt;
     private LocalDateTime createdAt;
     
     public Vehicle() {
@@ -75,6 +85,7 @@ public class Vehicle {
     
     public void setLatitude(Double latitude) {
         this.latitude = latitude;
+        updateLocation();
     }
     
     public Double getLongitude() {
@@ -83,5 +94,22 @@ public class Vehicle {
     
     public void setLongitude(Double longitude) {
         this.longitude = longitude;
+        updateLocation();
+    }
+    
+    public LocalDateTime getPositionRecordedAt() {
+        return positionRecordedAt;
+    }
+    
+    public void setPositionRecordedAt(LocalDateTime positionRecordedAt) {
+        this.positionRecordedAt = positionRecordedAt;
+    }
+    
+    public GeoJsonPoint getLocation() {
+        return location;
+    }
+    
+    private void updateLocation() {
+        this.location = latitude != null && longitude != null ? new GeoJsonPoint(longitude, latitude) : null;
     }
 }
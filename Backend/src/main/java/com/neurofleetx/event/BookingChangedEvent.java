@@ -0,0 +1,42 @@
+package com.neurofleetx.event;
+
+import com.neurofleetx.entity.Booking;
+
+// Published after a booking was created, changed or deleted; previousStatus is null for new bookings
+public class BookingChangedEvent {
+
+    private final Booking booking;
+    private final String previousStatus;
+    private final boolean deleted;
+
+    private BookingChangedEvent(Booking booking, String previousStatus, boolean deleted) {
+        this.booking = booking;
+        this.previousStatus = previousStatus;
+        this.deleted = deleted;
+    }
+
+    public static BookingChangedEvent created(Booking booking) {
+        return new BookingChangedEvent(booking, null, false);
+    }
+
+    public static BookingChangedEvent updated(Booking booking, String previousStatus) {
+        return new BookingChangedEvent(booking, previousStatus, false);
+    }
+
+    // booking is the document as it was when removed
+    public static BookingChangedEvent deleted(Booking booking) {
+        return new BookingChangedEvent(booking, booking.getStatus(), true);
+    }
+
+    public Booking getBooking() {
+        return booking;
+    }
+
+    public String getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+}
@@ -0,0 +1,17 @@
+package com.neurofleetx.event;
+
+import com.neurofleetx.entity.Driver;
+
+// Published after a driver document (location, GPS state or profile) has been saved
+public class DriverLocationEvent {
+
+    private final Driver driver;
+
+    public DriverLocationEvent(Driver driver) {
+        this.driver = driver;
+    }
+
+    public Driver getDriver() {
+        return driver;
+    }
+}
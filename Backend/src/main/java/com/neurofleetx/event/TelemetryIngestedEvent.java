@@ -0,0 +1,32 @@
+package com.neurofleetx.event;
+
+import com.neurofleetx.entity.Telemetry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Published once telemetry points are persisted, whichever ingest path (single, batch, write-behind) stored them
+public class TelemetryIngestedEvent {
+
+    private final List<Telemetry> telemetry;
+
+    public TelemetryIngestedEvent(List<Telemetry> telemetry) {
+        this.telemetry = telemetry;
+    }
+
+    // Event for the points of a bulk insert that were actually stored; failures are keyed by position
+    public static TelemetryIngestedEvent forStored(List<Telemetry> attempted, Map<Integer, String> failures) {
+        List<Telemetry> stored = new ArrayList<>(attempted.size() - failures.size());
+        for (int i = 0; i < attempted.size(); i++) {
+            if (!failures.containsKey(i)) {
+                stored.add(attempted.get(i));
+            }
+        }
+        return new TelemetryIngestedEvent(stored);
+    }
+    
+    public List<Telemetry> getTelemetry() {
+        return telemetry;
+    }
+}
@@ -6,7 +6,9 @@ import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookingRepository extends MongoRepository<Booking, String> {
@@ -23,12 +25,32 @@ public interface BookingRepository extends MongoRepository<Booking, String> {
     
     List<Booking> findByAssignedDriverId(String driverId);
     
+    // Cursor-backed; the caller must close the stream
+    Stream<Booking> streamAllBy();
+    
+    // Cursor-backed; the caller must close the stream
+    Stream<Booking> streamByStatusIn(Collection<String> statuses);
+    
     // Find bookings for a vehicle within a date range
     // This query finds any bookings that overlap with the requested time period
     // Two date ranges overlap if: (StartA <= EndB) AND (EndA >= StartB)
-    @Query("{ 'vehicleId': ?0, 'status': { $in: ['pending', 'confirmed', 'active'] }, " +
-           "'startDate': { $lt: ?2 }, 'endDate': { $gt: ?1 } }")
-    List<Booking> findConflictingBookings(String vehicleId, LocalDateTime startDate, LocalDateTime endDate);
+    // excludeId skips the booking being changed (null for none). Only the interval fields are returned;
+    // served by the occupying_vehicle_start_end index
+    @Query(value = "{ 'vehicleId': ?0, 'status': { $in: ['pending', 'confirmed', 'active'] }, " +
+           "'startDate': { $lt: ?2 }, 'endDate': { $gt: ?1 }, '_id': { $ne: ?3 } }",
+           fields = "{ 'vehicleId': 1, 'startDate': 1, 'endDate': 1, 'status': 1 }",
+           sort = "{ 'startDate': 1 }")
+    List<Booking> findConflictingBookings(String vehicleId, LocalDateTime startDate, LocalDateTime endDate, String excludeId);
+    
+    // Pending, confirmed and active bookings of a vehicle that have not ended yet, in start order
+    @Query(value = "{ 'vehicleId': ?0, 'status': { $in: ['pending', 'confirmed', 'active'] }, 'endDate': { $gt: ?1 } }",
+           sort = "{ 'startDate': 1 }")
+    List<Booking> findActiveByVehicle(String vehicleId, LocalDateTime now);
+    
+    // Bookings in a status whose start / end falls before a time; loads the lifecycle scheduler's horizon
+    List<Booking> findByStatusAndStartDateLessThanEqual(String status, LocalDateTime until);
+    
+    List<Booking> findByStatusAndEndDateLessThanEqual(String status, LocalDateTime until);
     
     // Find upcoming bookings
     @Query("{ 'userId': ?0, 'startDate': { $gte: ?1 }, 'status': { $in: ['pending', 'confirmed'] } }")
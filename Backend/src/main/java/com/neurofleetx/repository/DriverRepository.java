@@ -1,14 +1,27 @@
 package com.neurofleetx.repository;
 
 import com.neurofleetx.entity.Driver;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.regex.Pattern;
 
 @Repository
 public interface DriverRepository extends MongoRepository<Driver, String> {
     Optional<Driver> findByUsername(String username);
     Optional<Driver> findByUsernameAndLicenseNumber(String username, String licenseNumber);
     Optional<Driver> findByLicenseNumber(String licenseNumber);
+    
+    // GPS-enabled drivers nearest first within maxDistanceMeters, using the 2dsphere index on location
+    @Query("{ 'gpsEnabled': true, 'location': { $nearSphere: { $geometry: { type: 'Point', coordinates: [?0, ?1] }, $maxDistance: ?2 } } }")
+    List<Driver> findLiveNear(double longitude, double latitude, double maxDistanceMeters, Pageable pageable);
+    
+    // Same, only drivers whose status matches statusPattern (filtered before the limit is applied)
+    @Query("{ 'gpsEnabled': true, 'status': { $regex: ?3 }, 'location': { $nearSphere: { $geometry: { type: 'Point', coordinates: [?0, ?1] }, $maxDistance: ?2 } } }")
+    List<Driver> findLiveNearWithStatus(double longitude, double latitude, double maxDistanceMeters, Pattern statusPattern,
+                                        Pageable pageable);
 }
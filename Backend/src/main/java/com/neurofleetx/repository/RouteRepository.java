@@ -6,6 +6,7 @@ import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface RouteRepository extends MongoRepository<Route, String> {
@@ -14,4 +15,6 @@ public interface RouteRepository extends MongoRepository<Route, String> {
     List<Route> findByStatus(String status);
     Optional<Route> findFirstByDriverIdAndStatus(String driverId, String status);
     List<Route> findByDriverIdOrderByAssignedAtDesc(String driverId);
+    // Cursor-backed; the caller must close the stream
+    Stream<Route> streamAllBy();
 }
\ No newline at end of file
@@ -5,8 +5,12 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface TelemetryRepository extends MongoRepository<Telemetry, String> {
+public interface TelemetryRepository extends MongoRepository<Telemetry, String>, TelemetryRepositoryCustom {
     List<Telemetry> findByVehicleId(String vehicleId);
+    
+    // Cursor-backed; the caller must close the stream
+    Stream<Telemetry> streamAllBy();
 }
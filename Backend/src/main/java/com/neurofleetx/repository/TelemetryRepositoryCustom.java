@@ -0,0 +1,25 @@
+package com.neurofleetx.repository;
+
+import com.neurofleetx.entity.Telemetry;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public interface TelemetryRepositoryCustom {
+
+    // Inserts all points with a single unordered bulk write.
+    // Returns the failed positions (index into the list) mapped to the error message;
+    // every other point was stored and has its id set.
+    Map<Integer, String> insertUnordered(List<Telemetry> telemetry);
+
+    // Converts latitude/longitude/speed stored as Decimal128 into doubles in place.
+    // Returns the number of modified field values.
+    long convertDecimalCoordinates();
+
+    // Keyset page of a vehicle's history ordered by (recordedAt, id), served by the (vehicleId, recordedAt, _id) index.
+    // from/to bound recordedAt as [from, to); afterRecordedAt/afterId resume strictly after a previous page's last point.
+    // Any bound may be null.
+    List<Telemetry> findHistory(String vehicleId, LocalDateTime from, LocalDateTime to,
+                                LocalDateTime afterRecordedAt, String afterId, int limit);
+}
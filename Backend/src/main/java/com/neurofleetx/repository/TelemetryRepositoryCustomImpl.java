@@ -0,0 +1,94 @@
+package com.neurofleetx.repository;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.neurofleetx.entity.Telemetry;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TelemetryRepositoryCustomImpl implements TelemetryRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public Map<Integer, String> insertUnordered(List<Telemetry> telemetry) {
+        Map<Integer, String> failures = new HashMap<>();
+        if (telemetry.isEmpty()) {
+            return failures;
+        }
+
+        // Assign ids up front so callers can report them per item without reading back
+        for (Telemetry point : telemetry) {
+            if (point.getId() == null) {
+                point.setId(new ObjectId().toHexString());
+            }
+        }
+
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Telemetry.class)
+                    .insert(telemetry)
+                    .execute();
+        } catch (BulkOperationException e) {
+            // Unordered mode keeps going after a failed document, so only the reported indexes failed
+            for (BulkWriteError error : e.getErrors()) {
+                failures.put(error.getIndex(), error.getMessage());
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public long convertDecimalCoordinates() {
+        long modified = 0;
+        // One server-side pipeline update per field, touching only documents that still hold Decimal128
+        for (String field : new String[] {"latitude", "longitude", "speed"}) {
+            Query legacy = new Query(Criteria.where(field).type(JsonSchemaObject.Type.DECIMAL_128));
+            AggregationUpdate toDouble = AggregationUpdate.update()
+                    .set(field).toValue(ConvertOperators.valueOf(field).convertToDouble());
+            modified += mongoTemplate.updateMulti(legacy, toDouble, Telemetry.class).getModifiedCount();
+        }
+        return modified;
+    }
+
+    @Override
+    public List<Telemetry> findHistory(String vehicleId, LocalDateTime from, LocalDateTime to,
+                                       LocalDateTime afterRecordedAt, String afterId, int limit) {
+        List<Criteria> criteria = new ArrayList<>();
+        criteria.add(Criteria.where("vehicleId").is(vehicleId));
+        if (from != null) {
+            criteria.add(Criteria.where("recordedAt").gte(from));
+        }
+        if (to != null) {
+            criteria.add(Criteria.where("recordedAt").lt(to));
+        }
+        if (afterRecordedAt != null) {
+            // Strictly after the last (recordedAt, id) pair already returned
+            Object lastId = ObjectId.isValid(afterId) ? new ObjectId(afterId) : afterId;
+            criteria.add(new Criteria().orOperator(
+                    Criteria.where("recordedAt").gt(afterRecordedAt),
+                    new Criteria().andOperator(
+                            Criteria.where("recordedAt").is(afterRecordedAt),
+                            Criteria.where("_id").gt(lastId))));
+        }
+
+        Query query = new Query(new Criteria().andOperator(criteria))
+                .with(Sort.by(Sort.Order.asc("recordedAt"), Sort.Order.asc("_id")))
+                .limit(limit);
+        return mongoTemplate.find(query, Telemetry.class);
+    }
+}
@@ -0,0 +1,18 @@
+package com.neurofleetx.repository;
+
+import com.neurofleetx.entity.TelemetryRollup;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TelemetryRollupRepository extends MongoRepository<TelemetryRollup, String> {
+    
+    // Buckets starting in [from, to) for one vehicle and resolution, oldest first
+    @Query(value = "{ 'vehicleId': ?0, 'resolution': ?1, 'bucketStart': { $gte: ?2, $lt: ?3 } }",
+           sort = "{ 'bucketStart': 1 }")
+    List<TelemetryRollup> findBuckets(String vehicleId, String resolution, LocalDateTime from, LocalDateTime to);
+}
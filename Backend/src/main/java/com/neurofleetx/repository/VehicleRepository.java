@@ -1,9 +1,17 @@
 package com.neurofleetx.repository;
 
 import com.neurofleetx.entity.Vehicle;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface VehicleRepository extends MongoRepository<Vehicle, String> {
+    
+    // Vehicles nearest first within maxDistanceMeters, using the 2dsphere index on location
+    @Query("{ 'location': { $nearSphere: { $geometry: { type: 'Point', coordinates: [?0, ?1] }, $maxDistance: ?2 } } }")
+    List<Vehicle> findNear(double longitude, double latitude, double maxDistanceMeters, Pageable pageable);
 }
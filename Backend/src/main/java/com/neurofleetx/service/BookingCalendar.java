@@ -0,0 +1,177 @@
+package com.neurofleetx.service;
+
+import com.neurofleetx.entity.Booking;
+import com.neurofleetx.entity.BookingStatus;
+import com.neurofleetx.event.BookingChangedEvent;
+import com.neurofleetx.repository.BookingRepository;
+import com.neurofleetx.util.IntervalTree;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory per-vehicle interval index of the bookings that hold a vehicle (pending, confirmed and
+ * active), kept current from booking changes and rebuilt from MongoDB at startup. Availability and
+ * conflict checks are answered from here in O(log n) per vehicle.
+ *
+ * Only changes made in this instance reach the index, so it is used only for a single instance
+ * (neurofleetx.bookings.reservation.distributed=false). Otherwise it stays empty and unloaded and
+ * every check reads MongoDB.
+ */
+@Service
+@SuppressWarnings("null")
+public class BookingCalendar {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingCalendar.class);
+
+    public static final List<String> OCCUPYING_STATUSES = BookingStatus.occupyingValues();
+
+    private final Map<String, IntervalTree<BookingSlot>> vehicles = new ConcurrentHashMap<>();
+    // bookingId -> indexed slot, to find the old interval when a booking changes
+    private final Map<String, BookingSlot> slots = new ConcurrentHashMap<>();
+    // Bookings changed while the startup load runs; the load must not put back an older copy
+    private final Set<String> changedWhileLoading = ConcurrentHashMap.newKeySet();
+    private volatile boolean loaded;
+    private volatile boolean loading;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Value("${neurofleetx.bookings.reservation.distributed:true}")
+    private boolean distributed;
+
+    @PostConstruct
+    public void rebuild() {
+        if (distributed) {
+            log.info("Booking calendar disabled: bookings may change on other instances, checks read MongoDB");
+            return;
+        }
+        loading = true;
+        try (Stream<Booking> bookings = bookingRepository.streamByStatusIn(OCCUPYING_STATUSES)) {
+            bookings.filter(booking -> !changedWhileLoading.contains(booking.getId())).forEach(this::put);
+            loaded = true;
+            log.info("Booking calendar loaded {} bookings", slots.size());
+        } catch (RuntimeException e) {
+            // Checks fall back to MongoDB until the next restart
+            log.warn("Could not load booking calendar: {}", e.getMessage());
+        } finally {
+            loading = false;
+            changedWhileLoading.clear();
+        }
+    }
+
+    @EventListener
+    public void onBookingChanged(BookingChangedEvent event) {
+        Booking booking = event.getBooking();
+        if (!loaded) {
+            if (!loading) {
+                // Disabled, or the load failed: nothing reads the index
+                return;
+            }
+            changedWhileLoading.add(booking.getId());
+        }
+        if (event.isDeleted()) {
+            remove(booking.getId());
+        } else {
+            put(booking);
+        }
+    }
+
+    // False when disabled or until the startup load succeeded; callers should then ask MongoDB
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // Occupying bookings of the vehicle overlapping [start, end), ignoring excludeBookingId (may be null)
+    public List<BookingSlot> findConflicts(String vehicleId, LocalDateTime start, LocalDateTime end,
+                                           String excludeBookingId) {
+        IntervalTree<BookingSlot> tree = vehicles.get(vehicleId);
+        if (tree == null) {
+            return List.of();
+        }
+        synchronized (tree) {
+            return tree.findOverlapping(toMillis(start), toMillis(end),
+                    slot -> !slot.bookingId().equals(excludeBookingId));
+        }
+    }
+
+    public boolean isFree(String vehicleId, LocalDateTime start, LocalDateTime end, String excludeBookingId) {
+        IntervalTree<BookingSlot> tree = vehicles.get(vehicleId);
+        if (tree == null) {
+            return true;
+        }
+        synchronized (tree) {
+            return !tree.anyOverlapping(toMillis(start), toMillis(end),
+                    slot -> !slot.bookingId().equals(excludeBookingId));
+        }
+    }
+
+    // Vehicles holding at least one occupying booking overlapping [start, end)
+    public Set<String> findBusyVehicles(LocalDateTime start, LocalDateTime end) {
+        long from = toMillis(start);
+        long to = toMillis(end);
+        Set<String> busy = new HashSet<>();
+        vehicles.forEach((vehicleId, tree) -> {
+            synchronized (tree) {
+                if (tree.anyOverlapping(from, to, slot -> true)) {
+                    busy.add(vehicleId);
+                }
+            }
+        });
+        return busy;
+    }
+
+    private void put(Booking booking) {
+        boolean occupying = OCCUPYING_STATUSES.contains(booking.getStatus())
+                && booking.getVehicleId() != null && booking.getStartDate() != null && booking.getEndDate() != null;
+        if (!occupying) {
+            remove(booking.getId());
+            return;
+        }
+        BookingSlot slot = BookingSlot.of(booking);
+        // compute() serializes changes of one booking, so it is never indexed twice
+        slots.compute(booking.getId(), (id, previous) -> {
+            if (previous != null) {
+                unindex(previous);
+            }
+            IntervalTree<BookingSlot> tree = vehicles.computeIfAbsent(slot.vehicleId(), key -> new IntervalTree<>());
+            synchronized (tree) {
+                tree.add(id, toMillis(slot.startDate()), toMillis(slot.endDate()), slot);
+            }
+            return slot;
+        });
+    }
+
+    private void remove(String bookingId) {
+        slots.computeIfPresent(bookingId, (id, previous) -> {
+            unindex(previous);
+            return null;
+        });
+    }
+
+    private void unindex(BookingSlot slot) {
+        IntervalTree<BookingSlot> tree = vehicles.get(slot.vehicleId());
+        if (tree != null) {
+            synchronized (tree) {
+                tree.remove(slot.bookingId(), toMillis(slot.startDate()));
+            }
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
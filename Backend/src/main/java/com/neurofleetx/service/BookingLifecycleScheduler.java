@@ -0,0 +1,234 @@
+package com.neurofleetx.service;
+
+import com.neurofleetx.entity.Booking;
+import com.neurofleetx.entity.BookingStatus;
+import com.neurofleetx.event.BookingChangedEvent;
+import com.neurofleetx.repository.BookingRepository;
+import com.neurofleetx.util.MongoLeases;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opt-in automatic booking transitions: confirmed bookings start at startDate and active bookings
+ * complete at endDate, through the same conditional transitions as the endpoints.
+ *
+ * Due transitions sit in a delay queue (a ScheduledThreadPoolExecutor, i.e. a heap ordered by due
+ * time), one per booking. Only transitions due within the horizon are queued: they are loaded with
+ * two indexed range queries when this node becomes the scheduler and again every refresh interval,
+ * and booking changes add, move or drop their entry in between. Anything that fell due while no node
+ * was scheduling (e.g. during a restart) is loaded as overdue and fires at once.
+ *
+ * In a multi-instance deployment only the holder of a MongoDB lease schedules; the others stand by
+ * and take over when it stops renewing. Change events only reach the scheduler for bookings changed
+ * on its own instance, so a booking confirmed or edited elsewhere is picked up by the next refresh:
+ * its transition can run up to refresh-ms late, which is why refresh-ms defaults to 30 seconds.
+ */
+@Component
+public class BookingLifecycleScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingLifecycleScheduler.class);
+
+    static final String LEASE_COLLECTION = MongoLeases.SCHEDULER_LEASES;
+    static final String LEASE_ID = "booking-lifecycle";
+    private static final long RETRY_MILLIS = 30_000;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${neurofleetx.bookings.auto-transitions.enabled:false}")
+    private boolean enabled;
+
+    @Value("${neurofleetx.bookings.auto-transitions.horizon-minutes:60}")
+    private long horizonMinutes;
+
+    @Value("${neurofleetx.bookings.auto-transitions.lease-ms:30000}")
+    private long leaseMillis;
+
+    private final String owner = UUID.randomUUID().toString();
+    private final ScheduledThreadPoolExecutor timers = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "booking-lifecycle");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, Timer> queued = new ConcurrentHashMap<>();
+    private volatile boolean leader;
+
+    private record Timer(BookingStatus target, LocalDateTime due, ScheduledFuture<?> future) {
+    }
+
+    public BookingLifecycleScheduler() {
+        timers.setRemoveOnCancelPolicy(true);
+    }
+
+    // Take or renew the lease; load the horizon on becoming the scheduler and drop the queue on losing it
+    @Scheduled(fixedDelayString = "${neurofleetx.bookings.auto-transitions.lease-renew-ms:10000}")
+    public void maintainLease() {
+        if (!enabled) {
+            return;
+        }
+        boolean held;
+        try {
+            held = MongoLeases.tryAcquire(mongoTemplate, LEASE_COLLECTION, LEASE_ID, owner, leaseMillis);
+        } catch (RuntimeException e) {
+            // Cannot tell whether the lease is still ours; stop before another node takes over
+            log.warn("Could not renew booking scheduler lease: {}", e.getMessage());
+            held = false;
+        }
+        if (held && !leader) {
+            leader = true;
+            log.info("This instance now schedules automatic booking transitions");
+            refresh();
+        } else if (!held && leader) {
+            leader = false;
+            log.info("Booking scheduler lease lost; automatic transitions stop on this instance");
+            clear();
+        }
+    }
+
+    // Queue every transition due within the horizon, including overdue ones
+    @Scheduled(fixedDelayString = "${neurofleetx.bookings.auto-transitions.refresh-ms:30000}",
+               initialDelayString = "${neurofleetx.bookings.auto-transitions.refresh-ms:30000}")
+    public void refresh() {
+        if (!leader) {
+            return;
+        }
+        try {
+            LocalDateTime until = horizon();
+            bookingRepository.findByStatusAndStartDateLessThanEqual(BookingStatus.CONFIRMED.value(), until)
+                    .forEach(this::track);
+            bookingRepository.findByStatusAndEndDateLessThanEqual(BookingStatus.ACTIVE.value(), until)
+                    .forEach(this::track);
+        } catch (RuntimeException e) {
+            log.warn("Could not load upcoming booking transitions: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (!leader) {
+            return;
+        }
+        if (event.isDeleted()) {
+            cancel(event.getBooking().getId());
+        } else {
+            track(event.getBooking());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timers.shutdownNow();
+        if (leader) {
+            leader = false;
+            try {
+                // Let a standby take over without waiting for the lease to expire
+                MongoLeases.release(mongoTemplate, LEASE_COLLECTION, LEASE_ID, owner);
+            } catch (RuntimeException e) {
+                log.warn("Could not release booking scheduler lease: {}", e.getMessage());
+            }
+        }
+    }
+
+    // Queue, move or drop the booking's next transition to match its current state
+    private void track(Booking booking) {
+        BookingStatus target = null;
+        LocalDateTime due = null;
+        if (BookingStatus.CONFIRMED.value().equals(booking.getStatus())) {
+            target = BookingStatus.ACTIVE;
+            due = booking.getStartDate();
+        } else if (BookingStatus.ACTIVE.value().equals(booking.getStatus())) {
+            target = BookingStatus.COMPLETED;
+            due = booking.getEndDate();
+        }
+        if (target == null || due == null || due.isAfter(horizon())) {
+            cancel(booking.getId());
+            return;
+        }
+        schedule(booking.getId(), target, due);
+    }
+
+    private void schedule(String bookingId, BookingStatus target, LocalDateTime due) {
+        queued.compute(bookingId, (id, current) -> {
+            if (current != null) {
+                if (current.target() == target && current.due().equals(due)) {
+                    return current;
+                }
+                current.future().cancel(false);
+            }
+            long delay = Math.max(0, Duration.between(LocalDateTime.now(), due).toMillis());
+            ScheduledFuture<?> future = timers.schedule(() -> fire(id, target, due), delay, TimeUnit.MILLISECONDS);
+            return new Timer(target, due, future);
+        });
+    }
+
+    private void fire(String bookingId, BookingStatus target, LocalDateTime due) {
+        // Leave the entry alone if it was replaced meanwhile
+        queued.computeIfPresent(bookingId, (id, current) ->
+                current.target() == target && current.due().equals(due) ? null : current);
+        if (!leader) {
+            return;
+        }
+        try {
+            if (target == BookingStatus.ACTIVE) {
+                bookingService.startBooking(bookingId);
+            } else {
+                bookingService.completeBooking(bookingId);
+            }
+        } catch (RuntimeException e) {
+            if (!bookingRepository.existsById(bookingId)) {
+                return;
+            }
+            // Either the booking moved on by other means (its change event rescheduled it) or MongoDB
+            // failed; refresh() picks it up again in the latter case, but retry sooner
+            log.debug("Automatic transition of booking {} to {} failed: {}", bookingId, target.value(), e.getMessage());
+            if (!queued.containsKey(bookingId)) {
+                ScheduledFuture<?> future = timers.schedule(() -> retry(bookingId), RETRY_MILLIS, TimeUnit.MILLISECONDS);
+                queued.putIfAbsent(bookingId, new Timer(target, due, future));
+            }
+        }
+    }
+
+    private void retry(String bookingId) {
+        queued.remove(bookingId);
+        if (leader) {
+            bookingRepository.findById(bookingId).ifPresent(this::track);
+        }
+    }
+
+    private void cancel(String bookingId) {
+        Timer timer = queued.remove(bookingId);
+        if (timer != null) {
+            timer.future().cancel(false);
+        }
+    }
+
+    private void clear() {
+        queued.keySet().forEach(this::cancel);
+    }
+
+    private LocalDateTime horizon() {
+        return LocalDateTime.now().plusMinutes(horizonMinutes);
+    }
+}
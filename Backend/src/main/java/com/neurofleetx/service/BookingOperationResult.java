@@ -0,0 +1,13 @@
+package com.neurofleetx.service;
+
+// Outcome of a bulk booking operation for one id: status is the booking's status afterwards (null if unknown)
+public record BookingOperationResult(String bookingId, boolean success, String status, String message) {
+
+    static BookingOperationResult succeeded(String bookingId, String status) {
+        return new BookingOperationResult(bookingId, true, status, null);
+    }
+
+    static BookingOperationResult failed(String bookingId, String status, String message) {
+        return new BookingOperationResult(bookingId, false, status, message);
+    }
+}
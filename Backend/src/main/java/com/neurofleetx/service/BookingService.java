@@ -1,25 +1,69 @@
 package com.neurofleetx.service;
 
 import com.neurofleetx.entity.Booking;
+import com.neurofleetx.entity.BookingStatus;
+import com.neurofleetx.event.BookingChangedEvent;
 import com.neurofleetx.repository.BookingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 @SuppressWarnings("null")
 public class BookingService {
 
+    private static final Logger log = LoggerFactory.getLogger(BookingService.class);
+
+    private static final List<String> EDITABLE_STATUSES =
+            List.of(BookingStatus.PENDING.value(), BookingStatus.CONFIRMED.value());
+    private static final String DRIVER_ASSIGNMENT_REJECTED =
+            "Drivers can only be assigned to pending, confirmed or active bookings";
+
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private BookingCalendar bookingCalendar;
+
+    @Autowired
+    private VehicleReservations vehicleReservations;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public List<Booking> getAllBookings() {
         return bookingRepository.findAll();
     }
 
+    public Stream<Booking> streamAllBookings() {
+        return bookingRepository.streamAllBy();
+    }
+
     public List<Booking> getBookingsByUser(String userId) {
         return bookingRepository.findByUserId(userId);
     }
@@ -28,6 +72,11 @@ public class BookingService {
         return bookingRepository.findByVehicleId(vehicleId);
     }
 
+    // Bookings still holding the vehicle now or later, filtered and ordered by MongoDB
+    public List<Booking> getActiveBookingsByVehicle(String vehicleId) {
+        return bookingRepository.findActiveByVehicle(vehicleId, LocalDateTime.now());
+    }
+
     public List<Booking> getBookingsByStatus(String status) {
         return bookingRepository.findByStatus(status);
     }
@@ -41,6 +90,10 @@ public class BookingService {
     }
 
     public Booking createBooking(Booking booking) {
+        if (booking.getVehicleId() == null || booking.getVehicleId().isBlank()) {
+            throw new RuntimeException("Vehicle is required");
+        }
+
         // Validate dates
         if (booking.getStartDate() == null || booking.getEndDate() == null) {
             throw new RuntimeException("Start date and end date are required");
@@ -54,26 +107,31 @@ public class BookingService {
             throw new RuntimeException("Start date cannot be in the past");
         }
 
-        // Check for conflicting bookings
-        List<Booking> conflicts = bookingRepository.findConflictingBookings(
-            booking.getVehicleId(),
-            booking.getStartDate(),
-            booking.getEndDate()
-        );
+        // Check and save under the vehicle's reservation, so a concurrent booking cannot slip in between
+        return vehicleReservations.withReservation(booking.getVehicleId(), () -> {
+            List<BookingSlot> conflicts = findConflicts(
+                booking.getVehicleId(),
+                booking.getStartDate(),
+                booking.getEndDate(),
+                null
+            );
 
-        if (!conflicts.isEmpty()) {
-            StringBuilder conflictDetails = new StringBuilder("Vehicle is not available for the selected time period. Conflicting bookings: ");
-            for (Booking conflict : conflicts) {
-                conflictDetails.append(String.format("[%s to %s] ", 
-                    conflict.getStartDate().toString(), 
-                    conflict.getEndDate().toString()));
+            if (!conflicts.isEmpty()) {
+                StringBuilder conflictDetails = new StringBuilder("Vehicle is not available for the selected time period. Conflicting bookings: ");
+                for (BookingSlot conflict : conflicts) {
+                    conflictDetails.append(String.format("[%s to %s] ", 
+                        conflict.startDate().toString(), 
+                        conflict.endDate().toString()));
+                }
+                throw new RuntimeException(conflictDetails.toString());
             }
-            throw new RuntimeException(conflictDetails.toString());
-        }
 
-        booking.setCreatedAt(LocalDateTime.now());
-        booking.setStatus("pending");
-        return bookingRepository.save(booking);
+            booking.setCreatedAt(LocalDateTime.now());
+            booking.setStatus(BookingStatus.PENDING.value());
+            Booking saved = bookingRepository.save(booking);
+            eventPublisher.publishEvent(BookingChangedEvent.created(saved));
+            return saved;
+        });
     }
 
     public boolean isVehicleAvailable(String vehicleId, LocalDateTime startDate, LocalDateTime endDate) {
@@ -90,116 +148,207 @@ public class BookingService {
             return false;
         }
 
-        List<Booking> conflicts = bookingRepository.findConflictingBookings(vehicleId, startDate, endDate);
-        return conflicts.isEmpty();
+        if (bookingCalendar.isLoaded()) {
+            return bookingCalendar.isFree(vehicleId, startDate, endDate, null);
+        }
+        return queryConflicts(vehicleId, startDate, endDate, null).isEmpty();
     }
 
-    public Booking confirmBooking(String bookingId) {
-        Booking booking = bookingRepository.findById(bookingId)
-                .orElseThrow(() -> new RuntimeException("Booking not found with id: " + bookingId));
-
-        if (!"pending".equals(booking.getStatus())) {
-            throw new RuntimeException("Only pending bookings can be confirmed");
+    // Pending, confirmed and active bookings of the vehicle overlapping [startDate, endDate), other than
+    // excludeBookingId (may be null); from the in-memory calendar when it is loaded (single instance only),
+    // otherwise from MongoDB
+    public List<BookingSlot> findConflicts(String vehicleId, LocalDateTime startDate, LocalDateTime endDate,
+                                           String excludeBookingId) {
+        if (bookingCalendar.isLoaded()) {
+            return bookingCalendar.findConflicts(vehicleId, startDate, endDate, excludeBookingId);
         }
-
-        booking.setStatus("confirmed");
-        booking.setConfirmedAt(LocalDateTime.now());
-        return bookingRepository.save(booking);
+        return queryConflicts(vehicleId, startDate, endDate, excludeBookingId);
     }
 
-    public Booking startBooking(String bookingId) {
-        Booking booking = bookingRepository.findById(bookingId)
-                .orElseThrow(() -> new RuntimeException("Booking not found with id: " + bookingId));
+    // One indexed query returning only the conflicting intervals
+    private List<BookingSlot> queryConflicts(String vehicleId, LocalDateTime startDate, LocalDateTime endDate,
+                                             String excludeBookingId) {
+        return bookingRepository.findConflictingBookings(vehicleId, startDate, endDate, excludeBookingId).stream()
+                .map(BookingSlot::of)
+                .toList();
+    }
 
-        if (!"confirmed".equals(booking.getStatus())) {
-            throw new RuntimeException("Only confirmed bookings can be started");
+    // Ids of vehicles with a pending, confirmed or active booking overlapping [startDate, endDate). From the
+    // calendar on a single instance; otherwise bookings made on other instances must count too, so one
+    // distinct query over the (status, startDate) index
+    public Set<String> findBusyVehicleIds(LocalDateTime startDate, LocalDateTime endDate) {
+        if (bookingCalendar.isLoaded()) {
+            return bookingCalendar.findBusyVehicles(startDate, endDate);
         }
-
-        booking.setStatus("active");
-        return bookingRepository.save(booking);
+        Query overlapping = new Query(Criteria.where("status").in(BookingCalendar.OCCUPYING_STATUSES)
+                .and("startDate").lt(endDate)
+                .and("endDate").gt(startDate));
+        return new HashSet<>(mongoTemplate.findDistinct(overlapping, "vehicleId", Booking.class, String.class));
     }
 
-    public Booking completeBooking(String bookingId) {
-        Booking booking = bookingRepository.findById(bookingId)
-                .orElseThrow(() -> new RuntimeException("Booking not found with id: " + bookingId));
+    public Booking confirmBooking(String bookingId) {
+        return transition(bookingId, BookingStatus.CONFIRMED);
+    }
 
-        if (!"active".equals(booking.getStatus())) {
-            throw new RuntimeException("Only active bookings can be completed");
-        }
+    public Booking startBooking(String bookingId) {
+        return transition(bookingId, BookingStatus.ACTIVE);
+    }
 
-        booking.setStatus("completed");
-        return bookingRepository.save(booking);
+    public Booking completeBooking(String bookingId) {
+        return transition(bookingId, BookingStatus.COMPLETED);
     }
 
     public Booking cancelBooking(String bookingId) {
-        Booking booking = bookingRepository.findById(bookingId)
-                .orElseThrow(() -> new RuntimeException("Booking not found with id: " + bookingId));
-
-        if ("completed".equals(booking.getStatus()) || "cancelled".equals(booking.getStatus())) {
-            throw new RuntimeException("Cannot cancel completed or already cancelled bookings");
-        }
-
-        booking.setStatus("cancelled");
-        booking.setCancelledAt(LocalDateTime.now());
-        return bookingRepository.save(booking);
+        return transition(bookingId, BookingStatus.CANCELLED);
     }
 
     public Booking updateBooking(String id, Booking bookingDetails) {
+        if (bookingDetails.getStartDate() == null || bookingDetails.getEndDate() == null) {
+            throw new RuntimeException("Start date and end date are required");
+        }
+
         Booking booking = bookingRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Booking not found with id: " + id));
 
         // Only allow updates for pending and confirmed bookings
-        if ("active".equals(booking.getStatus()) || "completed".equals(booking.getStatus()) || 
-            "cancelled".equals(booking.getStatus())) {
+        if (!EDITABLE_STATUSES.contains(booking.getStatus())) {
             throw new RuntimeException("Cannot update active, completed, or cancelled bookings");
         }
 
-        // Check for conflicts if dates are being changed
-        if (!booking.getStartDate().equals(bookingDetails.getStartDate()) || 
-            !booking.getEndDate().equals(bookingDetails.getEndDate())) {
-            
-            List<Booking> conflicts = bookingRepository.findConflictingBookings(
+        // Update booking details
+        Update update = new Update()
+                .set("purpose", bookingDetails.getPurpose())
+                .set("pickupLocation", bookingDetails.getPickupLocation())
+                .set("dropoffLocation", bookingDetails.getDropoffLocation())
+                .set("contactNumber", bookingDetails.getContactNumber())
+                .set("notes", bookingDetails.getNotes());
+
+        if (booking.getStartDate().equals(bookingDetails.getStartDate()) && 
+            booking.getEndDate().equals(bookingDetails.getEndDate())) {
+            return applyEdit(booking, update);
+        }
+
+        // Dates are changing: check for conflicts and save under the vehicle's reservation
+        return vehicleReservations.withReservation(booking.getVehicleId(), () -> {
+            // Ignore the booking's own current slot
+            List<BookingSlot> conflicts = findConflicts(
                 booking.getVehicleId(),
                 bookingDetails.getStartDate(),
-                bookingDetails.getEndDate()
+                bookingDetails.getEndDate(),
+                booking.getId()
             );
 
-            // Remove current booking from conflicts
-            conflicts.removeIf(b -> b.getId().equals(booking.getId()));
-
             if (!conflicts.isEmpty()) {
                 throw new RuntimeException("Vehicle is not available for the selected time period");
             }
-        }
 
-        // Update booking details
-        booking.setStartDate(bookingDetails.getStartDate());
-        booking.setEndDate(bookingDetails.getEndDate());
-        booking.setPurpose(bookingDetails.getPurpose());
-        booking.setPickupLocation(bookingDetails.getPickupLocation());
-        booking.setDropoffLocation(bookingDetails.getDropoffLocation());
-        booking.setContactNumber(bookingDetails.getContactNumber());
-        booking.setNotes(bookingDetails.getNotes());
-
-        return bookingRepository.save(booking);
+            update.set("startDate", bookingDetails.getStartDate())
+                    .set("endDate", bookingDetails.getEndDate());
+            return applyEdit(booking, update);
+        });
     }
 
     public Booking assignDriverToBooking(String bookingId, String driverId, String driverName, String routeId) {
-        Booking booking = bookingRepository.findById(bookingId)
-                .orElseThrow(() -> new RuntimeException("Booking not found with id: " + bookingId));
+        LocalDateTime now = LocalDateTime.now();
+
+        // Auto-confirm the booking when driver is assigned: try pending first, then the other open statuses
+        String pending = BookingStatus.PENDING.value();
+        Booking booking = mongoTemplate.findAndModify(
+                statusQuery(bookingId, List.of(pending)),
+                driverAssignment(driverId, driverName, routeId, now)
+                        .set("status", BookingStatus.CONFIRMED.value())
+                        .set("confirmedAt", now),
+                Booking.class);
+        if (booking == null) {
+            booking = mongoTemplate.findAndModify(
+                    statusQuery(bookingId, List.of(BookingStatus.CONFIRMED.value(), BookingStatus.ACTIVE.value())),
+                    driverAssignment(driverId, driverName, routeId, now), Booking.class);
+        }
+        if (booking == null) {
+            throw bookingRepository.existsById(bookingId)
+                    ? new RuntimeException(DRIVER_ASSIGNMENT_REJECTED)
+                    : new RuntimeException("Booking not found with id: " + bookingId);
+        }
 
+        // findAndModify returned the document as it was; bring it up to date
+        String previousStatus = booking.getStatus();
         booking.setAssignedDriverId(driverId);
         booking.setAssignedDriverName(driverName);
         booking.setAssignedRouteId(routeId);
-        booking.setAssignedAt(LocalDateTime.now());
-        
-        // Auto-confirm the booking when driver is assigned
-        if ("pending".equals(booking.getStatus())) {
-            booking.setStatus("confirmed");
-            booking.setConfirmedAt(LocalDateTime.now());
+        booking.setAssignedAt(now);
+        if (pending.equals(previousStatus)) {
+            booking.setStatus(BookingStatus.CONFIRMED.value());
+            booking.setConfirmedAt(now);
+        }
+        eventPublisher.publishEvent(BookingChangedEvent.updated(booking, previousStatus));
+        return booking;
+    }
+
+    private Update driverAssignment(String driverId, String driverName, String routeId, LocalDateTime now) {
+        return new Update()
+                .set("assignedDriverId", driverId)
+                .set("assignedDriverName", driverName)
+                .set("assignedRouteId", routeId)
+                .set("assignedAt", now);
+    }
+
+    // Moves the booking to target in one conditional findAndModify. The filter only matches while the
+    // booking is in a status allowed to move there, so an illegal transition, or the loser of two racing
+    // ones, changes nothing and fails.
+    private Booking transition(String bookingId, BookingStatus target) {
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update().set("status", target.value());
+        if (target == BookingStatus.CONFIRMED) {
+            update.set("confirmedAt", now);
+        } else if (target == BookingStatus.CANCELLED) {
+            update.set("cancelledAt", now);
         }
 
-        return bookingRepository.save(booking);
+        Booking booking = mongoTemplate.findAndModify(
+                statusQuery(bookingId, BookingStatus.sourcesOf(target)), update, Booking.class);
+        if (booking == null) {
+            throw bookingRepository.existsById(bookingId)
+                    ? new RuntimeException(rejectionMessage(target))
+                    : new RuntimeException("Booking not found with id: " + bookingId);
+        }
+
+        // findAndModify returned the document as it was; bring it up to date
+        String previousStatus = booking.getStatus();
+        booking.setStatus(target.value());
+        if (target == BookingStatus.CONFIRMED) {
+            booking.setConfirmedAt(now);
+        } else if (target == BookingStatus.CANCELLED) {
+            booking.setCancelledAt(now);
+        }
+        eventPublisher.publishEvent(BookingChangedEvent.updated(booking, previousStatus));
+        return booking;
+    }
+
+    private String rejectionMessage(BookingStatus target) {
+        return switch (target) {
+            case CONFIRMED -> "Only pending bookings can be confirmed";
+            case ACTIVE -> "Only confirmed bookings can be started";
+            case COMPLETED -> "Only active bookings can be completed";
+            case CANCELLED -> "Cannot cancel completed or already cancelled bookings";
+            case PENDING -> "Bookings cannot return to pending";
+        };
+    }
+
+    private Query statusQuery(String bookingId, List<String> statuses) {
+        return new Query(Criteria.where("_id").is(bookingId).and("status").in(statuses));
+    }
+
+    // Applies an edit only while the booking is still editable and still has the dates it was checked with
+    private Booking applyEdit(Booking current, Update update) {
+        Query unchanged = statusQuery(current.getId(), EDITABLE_STATUSES)
+                .addCriteria(Criteria.where("startDate").is(current.getStartDate()).and("endDate").is(current.getEndDate()));
+        Booking updated = mongoTemplate.findAndModify(unchanged, update,
+                FindAndModifyOptions.options().returnNew(true), Booking.class);
+        if (updated == null) {
+            throw new RuntimeException("Booking was changed by another request, please reload and try again");
+        }
+        eventPublisher.publishEvent(BookingChangedEvent.updated(updated, updated.getStatus()));
+        return updated;
     }
 
     public List<Booking> getBookingsByDriver(String driverId) {
@@ -216,7 +365,134 @@ public class BookingService {
         }
     }
 
+    // Bulk operations: the same rules as the single-booking calls, applied to many ids with one read,
+    // one bulk write and one read-back, reporting the outcome per id (duplicates are reported once)
+
+    public List<BookingOperationResult> confirmBookings(List<String> bookingIds) {
+        return bulkTransition(bookingIds, BookingStatus.CONFIRMED);
+    }
+
+    public List<BookingOperationResult> cancelBookings(List<String> bookingIds) {
+        return bulkTransition(bookingIds, BookingStatus.CANCELLED);
+    }
+
+    public List<BookingOperationResult> assignDriverToBookings(List<String> bookingIds, String driverId,
+                                                               String driverName, String routeId) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        return bulkUpdate(bookingIds, Booking::getAssignedAt, now, current -> {
+            BookingStatus status = BookingStatus.of(current.getStatus());
+            if (!status.isOccupying()) {
+                throw new RuntimeException(DRIVER_ASSIGNMENT_REJECTED);
+            }
+            Update update = driverAssignment(driverId, driverName, routeId, now);
+            if (status == BookingStatus.PENDING) {
+                update.set("status", BookingStatus.CONFIRMED.value()).set("confirmedAt", now);
+            }
+            return update;
+        });
+    }
+
+    public List<BookingOperationResult> deleteBookings(List<String> bookingIds) {
+        List<String> ids = bookingIds.stream().distinct().toList();
+        Map<String, Booking> found = findAllById(ids);
+        long deleted = found.isEmpty() ? 0 : mongoTemplate.remove(
+                new Query(Criteria.where("_id").in(found.keySet())), Booking.class).getDeletedCount();
+        // Normally everything found was deleted; otherwise someone else removed some of them meanwhile
+        Map<String, Booking> remaining = deleted < found.size() ? findAllById(found.keySet()) : Map.of();
+
+        List<BookingOperationResult> results = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Booking booking = found.get(id);
+            if (booking == null) {
+                results.add(BookingOperationResult.failed(id, null, "Booking not found with id: " + id));
+            } else if (remaining.containsKey(id)) {
+                results.add(BookingOperationResult.failed(id, booking.getStatus(), "Booking could not be deleted"));
+            } else {
+                eventPublisher.publishEvent(BookingChangedEvent.deleted(booking));
+                results.add(BookingOperationResult.succeeded(id, null));
+            }
+        }
+        return results;
+    }
+
+    private List<BookingOperationResult> bulkTransition(List<String> bookingIds, BookingStatus target) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        Function<Booking, LocalDateTime> stamp = target == BookingStatus.CONFIRMED
+                ? Booking::getConfirmedAt : Booking::getCancelledAt;
+        String stampField = target == BookingStatus.CONFIRMED ? "confirmedAt" : "cancelledAt";
+        return bulkUpdate(bookingIds, stamp, now, current -> {
+            if (!BookingStatus.of(current.getStatus()).canTransitionTo(target)) {
+                throw new RuntimeException(rejectionMessage(target));
+            }
+            return new Update().set("status", target.value()).set(stampField, now);
+        });
+    }
+
+    // plan turns a booking's current state into its update, or throws to reject it. Each update is filtered
+    // on the status the booking was read in, so one changed concurrently is left alone. Every update also
+    // writes now into the field read by stamp; the read-back uses it to tell which updates applied.
+    private List<BookingOperationResult> bulkUpdate(List<String> bookingIds, Function<Booking, LocalDateTime> stamp,
+                                                    LocalDateTime now, Function<Booking, Update> plan) {
+        List<String> ids = bookingIds.stream().distinct().toList();
+        Map<String, Booking> before = findAllById(ids);
+        Map<String, String> rejected = new HashMap<>();
+        List<String> planned = new ArrayList<>();
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Booking.class);
+        for (String id : ids) {
+            Booking current = before.get(id);
+            if (current == null) {
+                rejected.put(id, "Booking not found with id: " + id);
+                continue;
+            }
+            try {
+                ops.updateOne(statusQuery(id, List.of(current.getStatus())), plan.apply(current));
+                planned.add(id);
+            } catch (RuntimeException e) {
+                rejected.put(id, e.getMessage());
+            }
+        }
+
+        Map<String, Booking> after = Map.of();
+        if (!planned.isEmpty()) {
+            try {
+                ops.execute();
+            } catch (BulkOperationException e) {
+                // Unordered: the other updates went ahead; the read-back shows which
+                log.warn("Bulk booking update had {} failed writes", e.getErrors().size());
+            }
+            after = findAllById(planned);
+        }
+
+        List<BookingOperationResult> results = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Booking previous = before.get(id);
+            if (rejected.containsKey(id)) {
+                results.add(BookingOperationResult.failed(id, previous != null ? previous.getStatus() : null, rejected.get(id)));
+                continue;
+            }
+            Booking updated = after.get(id);
+            if (updated != null && now.equals(stamp.apply(updated))) {
+                eventPublisher.publishEvent(BookingChangedEvent.updated(updated, previous.getStatus()));
+                results.add(BookingOperationResult.succeeded(id, updated.getStatus()));
+            } else {
+                results.add(BookingOperationResult.failed(id, updated != null ? updated.getStatus() : null,
+                        "Booking was changed by another request"));
+            }
+        }
+        return results;
+    }
+
+    private Map<String, Booking> findAllById(Collection<String> ids) {
+        Map<String, Booking> bookings = new HashMap<>();
+        bookingRepository.findAllById(ids).forEach(booking -> bookings.put(booking.getId(), booking));
+        return bookings;
+    }
+
     public void deleteBooking(String id) {
-        bookingRepository.deleteById(id);
+        // findAndRemove hands back the removed document, so listeners know which vehicle it held
+        Booking removed = mongoTemplate.findAndRemove(new Query(Criteria.where("_id").is(id)), Booking.class);
+        if (removed != null) {
+            eventPublisher.publishEvent(BookingChangedEvent.deleted(removed));
+        }
     }
 }
@@ -0,0 +1,15 @@
+package com.neurofleetx.service;
+
+import com.neurofleetx.entity.Booking;
+
+import java.time.LocalDateTime;
+
+// The part of a booking that occupies a vehicle: which one, when, and in what status
+public record BookingSlot(String bookingId, String vehicleId, LocalDateTime startDate, LocalDateTime endDate,
+                          String status) {
+
+    public static BookingSlot of(Booking booking) {
+        return new BookingSlot(booking.getId(), booking.getVehicleId(), booking.getStartDate(),
+                booking.getEndDate(), booking.getStatus());
+    }
+}
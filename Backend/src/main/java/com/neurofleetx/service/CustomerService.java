@@ -1,20 +1,57 @@
 package com.neurofleetx.service;
 
+import com.neurofleetx.entity.Booking;
+import com.neurofleetx.entity.BookingStatus;
 import com.neurofleetx.entity.Customer;
+import com.neurofleetx.event.BookingChangedEvent;
 import com.neurofleetx.repository.CustomerRepository;
+import com.neurofleetx.util.MongoLeases;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 @Service
 @SuppressWarnings("null")
 public class CustomerService {
     
+    private static final Logger log = LoggerFactory.getLogger(CustomerService.class);
+    
+    // One-off data migrations record themselves here once done
+    private static final String MIGRATIONS = "data_migrations";
+    private static final String BOOKING_STATS_MIGRATION = "customer-booking-stats";
+    // Long enough for the recount to finish; a crashed holder's lease lapses after it
+    private static final long MIGRATION_LEASE_MILLIS = 600_000;
+    
     @Autowired
     private CustomerRepository customerRepository;
     
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    private final String leaseOwner = UUID.randomUUID().toString();
+    
     // Create new customer
     public Customer createCustomer(Customer customer) {
         // Check if username already exists
@@ -153,32 +190,148 @@ public class CustomerService {
         return customerRepository.save(customer);
     }
     
-    // Update booking statistics
-    public Customer updateBookingStats(String customerId, String action) {
-        Optional<Customer> customerOpt = customerRepository.findById(customerId);
-        
-        if (customerOpt.isEmpty()) {
-            throw new RuntimeException("Customer not found");
+    // Counters were never maintained before the event listener below, so they are recounted from bookings
+    // once, by whichever instance takes the migration lease first. Other instances may already be serving
+    // requests (e.g. during a rolling upgrade), so booking changes can race it; see recountBookingStats().
+    @PostConstruct
+    public void backfillBookingStats() {
+        try {
+            if (isMigrated()) {
+                return;
+            }
+            if (!MongoLeases.tryAcquire(mongoTemplate, MongoLeases.SCHEDULER_LEASES, BOOKING_STATS_MIGRATION,
+                    leaseOwner, MIGRATION_LEASE_MILLIS)) {
+                log.info("Customer booking stats are being recounted by another instance");
+                return;
+            }
+            try {
+                // The previous holder may have finished between the check and the lease
+                if (isMigrated()) {
+                    return;
+                }
+                long updated = recountBookingStats();
+                mongoTemplate.save(new Document("_id", BOOKING_STATS_MIGRATION).append("completedAt", new Date()), MIGRATIONS);
+                log.info("Recounted booking stats of {} customers", updated);
+            } finally {
+                MongoLeases.release(mongoTemplate, MongoLeases.SCHEDULER_LEASES, BOOKING_STATS_MIGRATION, leaseOwner);
+            }
+        } catch (RuntimeException e) {
+            // Tried again on the next start
+            log.warn("Could not backfill customer booking stats: {}", e.getMessage());
         }
+    }
+    
+    private boolean isMigrated() {
+        return mongoTemplate.exists(new Query(Criteria.where("_id").is(BOOKING_STATS_MIGRATION)), MIGRATIONS);
+    }
+    
+    // Recompute every customer's booking counters from the bookings collection: one aggregation, then one
+    // $set per customer whose counters it computed, and zeros for customers left with no bookings whose
+    // counters are not already zero. There is no collection-wide reset, so a customer's counters are only
+    // exposed to booking changes made between the aggregation and that customer's write.
+    public long recountBookingStats() {
+        Aggregation perUser = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("userId").ne(null)),
+                Aggregation.group("userId")
+                        .count().as("totalBookings")
+                        .sum(countIf(ArrayOperators.In.arrayOf(BookingStatus.occupyingValues()).containsValue("$status")))
+                        .as("activeBookings")
+                        .sum(countIf(ComparisonOperators.valueOf("status").equalToValue(BookingStatus.COMPLETED.value())))
+                        .as("completedBookings")
+                        .sum(countIf(ComparisonOperators.valueOf("status").equalToValue(BookingStatus.CANCELLED.value())))
+                        .as("cancelledBookings"));
+        List<Document> counts = mongoTemplate.aggregate(perUser, Booking.class, Document.class).getMappedResults();
         
-        Customer customer = customerOpt.get();
-        
-        switch (action) {
-            case "create":
-                customer.setTotalBookings(customer.getTotalBookings() + 1);
-                customer.setActiveBookings(customer.getActiveBookings() + 1);
-                break;
-            case "complete":
-                customer.setActiveBookings(customer.getActiveBookings() - 1);
-                customer.setCompletedBookings(customer.getCompletedBookings() + 1);
-                break;
-            case "cancel":
-                customer.setActiveBookings(customer.getActiveBookings() - 1);
-                customer.setCancelledBookings(customer.getCancelledBookings() + 1);
-                break;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Customer.class);
+        Set<String> counted = new HashSet<>();
+        int writes = 0;
+        for (Document count : counts) {
+            counted.add(String.valueOf(count.get("_id")));
+            writes++;
+            // Bookings of users without a customer record match nothing
+            bulk.updateOne(new Query(Criteria.where("_id").is(count.get("_id"))), new Update()
+                    .set("totalBookings", count.get("totalBookings"))
+                    .set("activeBookings", count.get("activeBookings"))
+                    .set("completedBookings", count.get("completedBookings"))
+                    .set("cancelledBookings", count.get("cancelledBookings")));
         }
         
-        return customerRepository.save(customer);
+        // Customers the aggregation found no bookings for, but whose counters are not zero
+        Query nonZero = new Query(new Criteria().orOperator(
+                Criteria.where("totalBookings").ne(0), Criteria.where("activeBookings").ne(0),
+                Criteria.where("completedBookings").ne(0), Criteria.where("cancelledBookings").ne(0)));
+        nonZero.fields().include("_id");
+        for (Customer customer : mongoTemplate.find(nonZero, Customer.class)) {
+            if (!counted.contains(customer.getId())) {
+                bulk.updateOne(new Query(Criteria.where("_id").is(customer.getId())), new Update()
+                        .set("totalBookings", 0).set("activeBookings", 0)
+                        .set("completedBookings", 0).set("cancelledBookings", 0));
+                writes++;
+            }
+        }
+        if (writes == 0) {
+            return 0;
+        }
+        return bulk.execute().getMatchedCount();
+    }
+    
+    // Keep the customer's booking counters in step with booking changes: one atomic $inc per change,
+    // computed from the event alone. Bookings of users without a customer record match nothing.
+    // The counters describe the bookings that exist, so deleting one also takes it out of totalBookings
+    // and its status counter, matching what recountBookingStats() would give.
+    @EventListener
+    public void onBookingChanged(BookingChangedEvent event) {
+        Booking booking = event.getBooking();
+        if (booking.getUserId() == null) {
+            return;
+        }
+        String previous = statsCounter(event.getPreviousStatus());
+        String current = statsCounter(booking.getStatus());
+        Update update = new Update();
+        if (event.isDeleted()) {
+            update.inc("totalBookings", -1);
+            if (previous != null) {
+                update.inc(previous, -1);
+            }
+        } else if (event.getPreviousStatus() == null) {
+            update.inc("totalBookings", 1);
+            if (current != null) {
+                update.inc(current, 1);
+            }
+        } else if (!Objects.equals(previous, current)) {
+            if (previous != null) {
+                update.inc(previous, -1);
+            }
+            if (current != null) {
+                update.inc(current, 1);
+            }
+        } else {
+            return;
+        }
+        try {
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(booking.getUserId())), update, Customer.class);
+        } catch (RuntimeException e) {
+            // The booking change itself already succeeded
+            log.warn("Could not update booking stats of customer {}: {}", booking.getUserId(), e.getMessage());
+        }
+    }
+
+    private static AggregationExpression countIf(AggregationExpression condition) {
+        return ConditionalOperators.when(condition).then(1).otherwise(0);
+    }
+    
+    // Pending, confirmed and active bookings all count as active
+    private static String statsCounter(String status) {
+        BookingStatus bookingStatus;
+        try {
+            bookingStatus = BookingStatus.of(status);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (bookingStatus.isOccupying()) {
+            return "activeBookings";
+        }
+        return bookingStatus == BookingStatus.COMPLETED ? "completedBookings" : "cancelledBookings";
     }
     
     // Delete customer
@@ -0,0 +1,183 @@
+package com.neurofleetx.service;
+
+import com.neurofleetx.entity.Driver;
+import com.neurofleetx.event.DriverLocationEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Opt-in write coalescing for driver location pings. Each ping updates the live position store
+ * (and so live tracking and the SSE stream) immediately, but only the latest pending location per
+ * driver is kept for MongoDB; the dirty set is written as one unordered bulk update per interval.
+ * With pings every second and a 5 second interval, a driver costs one write instead of five.
+ */
+@Component
+public class DriverLocationCoalescer {
+
+    private static final Logger log = LoggerFactory.getLogger(DriverLocationCoalescer.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private LivePositionStore livePositionStore;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${neurofleetx.drivers.location-coalescing.enabled:false}")
+    private boolean enabled;
+
+    private final Map<String, PendingLocation> pending = new ConcurrentHashMap<>();
+    // Held while a flush is written, so a synchronous write cannot be overtaken by an older pending one
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final AtomicLong pings = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+
+    private record PendingLocation(Double latitude, Double longitude, Double speed, Boolean gpsEnabled,
+                                   LocalDateTime updatedAt) {
+
+        // Fields sent in the newer ping win; fields it left out keep their pending value
+        PendingLocation merge(PendingLocation newer) {
+            return new PendingLocation(
+                    newer.latitude != null ? newer.latitude : latitude,
+                    newer.longitude != null ? newer.longitude : longitude,
+                    newer.speed != null ? newer.speed : speed,
+                    newer.gpsEnabled != null ? newer.gpsEnabled : gpsEnabled,
+                    newer.updatedAt);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Record a ping for the next flush and publish it to live readers. Empty if the driver is unknown
+    // to the live store, in which case the caller should write synchronously.
+    public Optional<Driver> submit(String id, Double latitude, Double longitude, Double speed, Boolean gpsEnabled) {
+        Optional<Driver> current = livePositionStore.getDriver(id);
+        if (current.isEmpty()) {
+            return Optional.empty();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        pending.merge(id, new PendingLocation(latitude, longitude, speed, gpsEnabled, now), PendingLocation::merge);
+        pings.incrementAndGet();
+
+        Driver driver = current.get();
+        if (latitude != null) {
+            driver.setLatitude(latitude);
+            driver.setLongitude(longitude);
+        }
+        if (speed != null) {
+            driver.setCurrentSpeed(speed);
+        }
+        if (gpsEnabled != null) {
+            driver.setGpsEnabled(gpsEnabled);
+        }
+        driver.setLastLocationUpdate(now);
+        eventPublisher.publishEvent(new DriverLocationEvent(driver));
+        return Optional.of(driver);
+    }
+
+    // Drop the driver's pending ping and run a write that must not be overwritten by it
+    public <T> T discardAndRun(String id, Supplier<T> write) {
+        flushLock.lock();
+        try {
+            pending.remove(id);
+            return write.get();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${neurofleetx.drivers.location-coalescing.flush-interval-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            Map<String, PendingLocation> batch = new HashMap<>();
+            for (String id : new ArrayList<>(pending.keySet())) {
+                PendingLocation location = pending.remove(id);
+                if (location != null) {
+                    batch.put(id, location);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                write(batch);
+                writes.addAndGet(batch.size());
+                flushes.incrementAndGet();
+            } catch (RuntimeException e) {
+                // Keep the locations for the next attempt unless a newer ping replaced them meanwhile
+                batch.forEach((id, location) -> pending.merge(id, location, (newer, failed) -> failed.merge(newer)));
+                log.warn("Failed to flush {} coalesced driver locations: {}", batch.size(), e.getMessage());
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("pending", pending.size());
+        stats.put("pings", pings.get());
+        stats.put("writes", writes.get());
+        stats.put("flushes", flushes.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void write(Map<String, PendingLocation> batch) {
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Driver.class);
+        batch.forEach((id, location) -> {
+            Update update = new Update().set("lastLocationUpdate", location.updatedAt());
+            if (location.latitude() != null) {
+                update.set("latitude", location.latitude())
+                        .set("longitude", location.longitude())
+                        .set("location", new GeoJsonPoint(location.longitude(), location.latitude()));
+            }
+            if (location.speed() != null) {
+                update.set("currentSpeed", location.speed());
+            }
+            if (location.gpsEnabled() != null) {
+                update.set("gpsEnabled", location.gpsEnabled());
+            }
+            ops.updateOne(new Query(Criteria.where("_id").is(id)), update);
+        });
+        ops.execute();
+    }
+}
@@ -1,12 +1,26 @@
 package com.neurofleetx.service;
 
 import com.neurofleetx.entity.Driver;
+import com.neurofleetx.event.DriverLocationEvent;
 import com.neurofleetx.repository.DriverRepository;
+import com.neurofleetx.util.GeoUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.regex.Pattern;
 
 @Service
 @SuppressWarnings("null")
@@ -15,6 +29,18 @@ public class DriverService {
     @Autowired
     private DriverRepository driverRepository;
     
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private LivePositionStore livePositionStore;
+    
+    @Autowired
+    private DriverLocationCoalescer driverLocationCoalescer;
+    
     public List<Driver> getAllDrivers() {
         return driverRepository.findAll();
     }
@@ -40,7 +66,9 @@ public class DriverService {
             }
         }
         
-        return driverRepository.save(driver);
+        Driver savedDriver = driverRepository.save(driver);
+        eventPublisher.publishEvent(new DriverLocationEvent(savedDriver));
+        return savedDriver;
     }
     
     public Driver authenticateDriver(String username, String licenseNumber, String password) {
@@ -84,10 +112,100 @@ public class DriverService {
             driver.setRating(driverDetails.getRating());
         }
         
-        return driverRepository.save(driver);
+        // Every save is published so live tracking sees profile and location changes alike
+        Driver savedDriver = driverRepository.save(driver);
+        eventPublisher.publishEvent(new DriverLocationEvent(savedDriver));
+        return savedDriver;
+    }
+    
+    // Location ping: a single findAndModify that sets only the fields sent (plus lastLocationUpdate),
+    // with no read beforehand. Empty if the driver does not exist. With coalescing enabled, known
+    // drivers are updated in memory right away and written to MongoDB on the next flush.
+    public Optional<Driver> updateDriverLocation(String id, Double latitude, Double longitude, Double speed, Boolean gpsEnabled) {
+        if ((latitude == null) != (longitude == null)) {
+            throw new IllegalArgumentException("latitude and longitude must be sent together");
+        }
+        if (driverLocationCoalescer.isEnabled()) {
+            Optional<Driver> coalesced = driverLocationCoalescer.submit(id, latitude, longitude, speed, gpsEnabled);
+            if (coalesced.isPresent()) {
+                return coalesced;
+            }
+        }
+        Update update = new Update().set("lastLocationUpdate", LocalDateTime.now());
+        if (latitude != null) {
+            update.set("latitude", latitude)
+                    .set("longitude", longitude)
+                    .set("location", new GeoJsonPoint(longitude, latitude));
+        }
+        if (speed != null) {
+            update.set("currentSpeed", speed);
+        }
+        if (gpsEnabled != null) {
+            update.set("gpsEnabled", gpsEnabled);
+        }
+        return applyLocationUpdate(id, update);
+    }
+    
+    // Switching GPS off also clears the last known location
+    public Optional<Driver> setGpsEnabled(String id, boolean gpsEnabled) {
+        Update update = new Update()
+                .set("gpsEnabled", gpsEnabled)
+                .set("lastLocationUpdate", LocalDateTime.now());
+        if (!gpsEnabled) {
+            update.unset("latitude").unset("longitude").unset("location").set("currentSpeed", 0.0);
+        }
+        if (driverLocationCoalescer.isEnabled()) {
+            // A still-pending ping is older than this toggle and must not be flushed after it
+            return driverLocationCoalescer.discardAndRun(id, () -> applyLocationUpdate(id, update));
+        }
+        return applyLocationUpdate(id, update);
+    }
+    
+    // Pings received versus driver documents written by the coalescer
+    public Map<String, Object> getLocationWriteStats() {
+        return driverLocationCoalescer.getStats();
+    }
+    
+    private Optional<Driver> applyLocationUpdate(String id, Update update) {
+        Query query = new Query(Criteria.where("_id").is(id));
+        query.fields().exclude("password");
+        Driver driver = mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Driver.class);
+        if (driver == null) {
+            return Optional.empty();
+        }
+        eventPublisher.publishEvent(new DriverLocationEvent(driver));
+        return Optional.of(driver);
+    }
+    
+    // Drivers shown on the live map, served from memory; with since, only what changed after that version
+    public LiveTrackingDelta getLiveDriverChanges(String since) {
+        return livePositionStore.getLiveDriverChanges(since);
+    }
+    
+    // Nearest GPS-enabled drivers within radiusMeters, from the in-memory grid; MongoDB's 2dsphere
+    // index answers instead while the live store could not be loaded
+    public List<NearbyResult<Driver>> findNearbyDrivers(double latitude, double longitude, double radiusMeters,
+                                                        int limit, String status) {
+        if (livePositionStore.isLoaded()) {
+            return livePositionStore.findNearbyDrivers(latitude, longitude, radiusMeters, limit, status);
+        }
+        List<NearbyResult<Driver>> result = new ArrayList<>();
+        PageRequest page = PageRequest.of(0, limit);
+        // The status filter is part of the query, so the limit counts matching drivers only
+        List<Driver> drivers = status == null
+                ? driverRepository.findLiveNear(longitude, latitude, radiusMeters, page)
+                : driverRepository.findLiveNearWithStatus(longitude, latitude, radiusMeters,
+                        Pattern.compile("^" + Pattern.quote(status) + "$", Pattern.CASE_INSENSITIVE), page);
+        for (Driver driver : drivers) {
+            driver.setPassword(null);
+            double distance = GeoUtils.haversineMeters(latitude, longitude, driver.getLatitude(), driver.getLongitude());
+            result.add(new NearbyResult<>(driver, distance));
+        }
+        return result;
     }
     
     public void deleteDriver(String id) {
         driverRepository.deleteById(id);
+        livePositionStore.removeDriver(id);
     }
 }
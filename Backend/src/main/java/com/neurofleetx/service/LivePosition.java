@@ -0,0 +1,78 @@
+package com.neurofleetx.service;
+
+import com.neurofleetx.entity.Driver;
+import com.neurofleetx.entity.Telemetry;
+
+import java.time.LocalDateTime;
+
+// Latest known position of a driver or vehicle as pushed to live dashboards
+public class LivePosition {
+
+    public static final String DRIVER = "driver";
+    public static final String VEHICLE = "vehicle";
+
+    private final String type;
+    private final String id;
+    private final Double latitude;
+    private final Double longitude;
+    private final double speed;
+    private final boolean active;
+    private final LocalDateTime recordedAt;
+
+    public LivePosition(String type, String id, Double latitude, Double longitude, double speed,
+                        boolean active, LocalDateTime recordedAt) {
+        this.type = type;
+        this.id = id;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.speed = speed;
+        this.active = active;
+        this.recordedAt = recordedAt;
+    }
+
+    public static LivePosition ofDriver(Driver driver) {
+        boolean active = Boolean.TRUE.equals(driver.getGpsEnabled())
+                && driver.getLatitude() != null && driver.getLongitude() != null;
+        return new LivePosition(DRIVER, driver.getId(), driver.getLatitude(), driver.getLongitude(),
+                driver.getCurrentSpeed() != null ? driver.getCurrentSpeed() : 0, active, driver.getLastLocationUpdate());
+    }
+
+    public static LivePosition ofVehicle(Telemetry point) {
+        return new LivePosition(VEHICLE, point.getVehicleId(), point.getLatitude(), point.getLongitude(),
+                point.getSpeed(), true, point.getRecordedAt());
+    }
+
+    // Key that identifies the tracked object across both types
+    public String key() {
+        return type + ":" + id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    // False when the driver switched GPS off; dashboards should drop the marker
+    public boolean isActive() {
+        return active;
+    }
+
+    public LocalDateTime getRecordedAt() {
+        return recordedAt;
+    }
+}
@@ -0,0 +1,131 @@
+package com.neurofleetx.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.neurofleetx.entity.Telemetry;
+import com.neurofleetx.event.DriverLocationEvent;
+import com.neurofleetx.event.TelemetryIngestedEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Pushes position changes to subscribed dashboards over Server-Sent Events.
+ *
+ * Updates from every ingest path are coalesced per driver/vehicle (latest wins) and sent as one
+ * "positions" event per flush interval, so a burst of pings costs one write per subscriber and
+ * ingest threads never block on slow clients.
+ */
+@Service
+public class LivePositionBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(LivePositionBroadcaster.class);
+
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+    private final Map<String, LivePosition> pending = new LinkedHashMap<>();
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${neurofleetx.live.sse-timeout-ms:0}")
+    private long sseTimeoutMs;
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(error -> subscribers.remove(emitter));
+        subscribers.add(emitter);
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public void publish(LivePosition position) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        synchronized (pending) {
+            pending.remove(position.key());
+            pending.put(position.key(), position);
+        }
+    }
+
+    @EventListener
+    public void onTelemetryIngested(TelemetryIngestedEvent event) {
+        for (Telemetry point : event.getTelemetry()) {
+            if (point.getVehicleId() != null) {
+                publish(LivePosition.ofVehicle(point));
+            }
+        }
+    }
+
+    @EventListener
+    public void onDriverLocation(DriverLocationEvent event) {
+        publish(LivePosition.ofDriver(event.getDriver()));
+    }
+
+    @Scheduled(fixedDelayString = "${neurofleetx.live.flush-interval-ms:250}")
+    public void flush() {
+        List<LivePosition> batch;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        String json;
+        try {
+            // Serialize once; emitters write a String as is instead of running it through Jackson again
+            json = objectMapper.writeValueAsString(batch);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize live positions: {}", e.getMessage());
+            return;
+        }
+        send(SseEmitter.event().name("positions").data(json));
+    }
+
+    // Comment line every so often so proxies do not close idle streams
+    @Scheduled(fixedDelayString = "${neurofleetx.live.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        send(SseEmitter.event().comment("keep-alive"));
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        subscribers.forEach(SseEmitter::complete);
+        subscribers.clear();
+    }
+
+    private void send(SseEmitter.SseEventBuilder event) {
+        // Build the event once; every subscriber gets the same frame
+        Set<ResponseBodyEmitter.DataWithMediaType> frame = event.build();
+        for (SseEmitter emitter : subscribers) {
+            try {
+                emitter.send(frame);
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; the container completes the emitter and the callbacks unregister it
+                subscribers.remove(emitter);
+                log.debug("Dropped live position subscriber: {}", e.getMessage());
+            }
+        }
+    }
+}
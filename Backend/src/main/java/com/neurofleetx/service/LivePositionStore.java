@@ -0,0 +1,369 @@
+package com.neurofleetx.service;
+
+import com.neurofleetx.entity.Driver;
+import com.neurofleetx.entity.Telemetry;
+import com.neurofleetx.event.DriverLocationEvent;
+import com.neurofleetx.event.TelemetryIngestedEvent;
+import com.neurofleetx.repository.DriverRepository;
+import com.neurofleetx.util.GeoGridIndex;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-memory latest position of every driver and vehicle, kept current from driver saves and stored
+ * telemetry and rebuilt from MongoDB at startup. Live tracking reads are served from here only. Writes made
+ * through other instances reach it through LivePositionSync.
+ *
+ * Drivers are held as password-free copies of their documents, since the dashboard shows profile
+ * fields next to the marker. Vehicle positions come from the newest telemetry point per vehicle.
+ * Both are also kept in grid indexes for proximity queries; only drivers with GPS on are indexed.
+ *
+ * Every driver change gets a version from one increasing counter, so pollers can ask for the changes
+ * after the version they last saw. Versions are handed out as "epoch:version" cursors, where the epoch is
+ * random per start: a cursor from another instance or from before a restart never matches and gets the
+ * full list, however the counters compare. Deleted drivers stay behind as tombstones for the same reason, until
+ * the tombstone retention has passed; pollers whose version is older than a pruned tombstone get the
+ * full list again.
+ */
+@Service
+@SuppressWarnings("null")
+public class LivePositionStore {
+
+    private static final Logger log = LoggerFactory.getLogger(LivePositionStore.class);
+
+    private final Map<String, DriverEntry> drivers = new ConcurrentHashMap<>();
+    private final Map<String, LivePosition> vehicles = new ConcurrentHashMap<>();
+    private GeoGridIndex driverIndex;
+    private GeoGridIndex vehicleIndex;
+    private volatile boolean loaded;
+
+    // Identifies this store's version counter in cursors; versions are only comparable within one epoch
+    private final String epoch = UUID.randomUUID().toString();
+    private final AtomicLong version = new AtomicLong();
+    // Deltas cannot be given for versions below this: older than a pruned tombstone
+    private volatile long oldestDeltaVersion = 0;
+    // Delta readers share the read side; pruning takes the write side, so a delta never misses a tombstone
+    // that was pruned while it ran
+    private final ReentrantReadWriteLock pruneGate = new ReentrantReadWriteLock();
+    // Writers share the read side while they take a version and store it; a delta reader takes the write
+    // side to read the high-water mark, so every version at or below it is already visible in the map
+    private final ReentrantReadWriteLock versionGate = new ReentrantReadWriteLock();
+
+    // driver is null once the driver was deleted; removedAt is then when (epoch millis)
+    private record DriverEntry(Driver driver, long version, long removedAt) {
+    }
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${neurofleetx.live.grid-cell-degrees:0.01}")
+    private double gridCellDegrees;
+
+    @Value("${neurofleetx.live.tombstone-retention-ms:600000}")
+    private long tombstoneRetentionMillis;
+
+    @PostConstruct
+    public void rebuild() {
+        driverIndex = new GeoGridIndex(gridCellDegrees);
+        vehicleIndex = new GeoGridIndex(gridCellDegrees);
+        try {
+            // Entries written by events while loading are newer than what was read, so they win
+            driverRepository.findAll().forEach(driver -> changeDriver(driver.getId(),
+                    current -> current != null ? current : newEntry(index(liveView(driver)))));
+
+            Aggregation latestPerVehicle = Aggregation.newAggregation(
+                    // Both fields descending: the (vehicleId, recordedAt, _id) index walked backwards, no blocking sort
+                    Aggregation.sort(Sort.by(Sort.Order.desc("vehicleId"), Sort.Order.desc("recordedAt"))),
+                    Aggregation.group("vehicleId").first(Aggregation.ROOT).as("latest"),
+                    Aggregation.replaceRoot("latest"))
+                    .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+            mongoTemplate.aggregate(latestPerVehicle, Telemetry.class, Telemetry.class)
+                    .forEach(this::putVehicle);
+
+            loaded = true;
+            log.info("Live position store loaded {} drivers and {} vehicles", drivers.size(), vehicles.size());
+        } catch (RuntimeException e) {
+            // Positions fill in again as drivers and vehicles report
+            log.warn("Could not preload live positions: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onDriverLocation(DriverLocationEvent event) {
+        Driver driver = event.getDriver();
+        changeDriver(driver.getId(), current -> newEntry(index(liveView(driver))));
+    }
+
+    @EventListener
+    public void onTelemetryIngested(TelemetryIngestedEvent event) {
+        event.getTelemetry().forEach(this::putVehicle);
+    }
+
+    public void removeDriver(String id) {
+        changeDriver(id, current -> {
+            driverIndex.remove(id);
+            return current != null ? new DriverEntry(null, version.incrementAndGet(), System.currentTimeMillis()) : null;
+        });
+    }
+
+    // Drop tombstones older than the retention; pollers behind the newest dropped one get the full list
+    @Scheduled(fixedDelayString = "${neurofleetx.live.tombstone-retention-ms:600000}")
+    public void pruneTombstones() {
+        long cutoff = System.currentTimeMillis() - tombstoneRetentionMillis;
+        pruneGate.writeLock().lock();
+        try {
+            drivers.forEach((id, entry) -> {
+                if (entry.driver() == null && entry.removedAt() < cutoff) {
+                    // Only if no newer change replaced the tombstone meanwhile
+                    if (drivers.remove(id, entry)) {
+                        oldestDeltaVersion = Math.max(oldestDeltaVersion, entry.version());
+                    }
+                }
+            });
+        } finally {
+            pruneGate.writeLock().unlock();
+        }
+    }
+
+    // False until the startup load succeeded; callers should then fall back to MongoDB
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // Live drivers within radiusMeters, nearest first, optionally only those with the given status
+    public List<NearbyResult<Driver>> findNearbyDrivers(double latitude, double longitude, double radiusMeters,
+                                                        int limit, String status) {
+        List<NearbyResult<Driver>> result = new ArrayList<>();
+        for (GeoGridIndex.Match match : driverIndex.nearest(latitude, longitude, radiusMeters, limit,
+                id -> status == null || hasStatus(currentDriver(id), status))) {
+            Driver driver = currentDriver(match.getId());
+            if (driver != null) {
+                result.add(new NearbyResult<>(driver, match.getDistanceMeters()));
+            }
+        }
+        return result;
+    }
+
+    public List<NearbyResult<LivePosition>> findNearbyVehicles(double latitude, double longitude, double radiusMeters, int limit) {
+        List<NearbyResult<LivePosition>> result = new ArrayList<>();
+        for (GeoGridIndex.Match match : vehicleIndex.nearest(latitude, longitude, radiusMeters, limit, id -> true)) {
+            LivePosition position = vehicles.get(match.getId());
+            if (position != null) {
+                result.add(new NearbyResult<>(position, match.getDistanceMeters()));
+            }
+        }
+        return result;
+    }
+
+    // Private copy of the driver's current entry, safe for the caller to modify
+    public Optional<Driver> getDriver(String id) {
+        Driver driver = currentDriver(id);
+        return driver != null ? Optional.of(liveView(driver)) : Optional.empty();
+    }
+
+    // Drivers with GPS on and a known location that changed after the given cursor, and the ids of
+    // drivers that left live tracking (GPS off or deleted) since then. Without a cursor, or with one
+    // this store cannot answer (another epoch, older than a pruned tombstone, or never issued),
+    // the full list is returned instead.
+    public LiveTrackingDelta getLiveDriverChanges(String cursor) {
+        Long since = parseCursor(cursor);
+        pruneGate.readLock().lock();
+        try {
+            long highWater;
+            versionGate.writeLock().lock();
+            try {
+                highWater = version.get();
+            } finally {
+                versionGate.writeLock().unlock();
+            }
+
+            boolean full = since == null || since < oldestDeltaVersion || since > highWater;
+            List<Driver> changed = new ArrayList<>();
+            List<String> removed = new ArrayList<>();
+            for (Map.Entry<String, DriverEntry> entry : drivers.entrySet()) {
+                DriverEntry current = entry.getValue();
+                if (!full && current.version() <= since) {
+                    continue;
+                }
+                if (current.driver() != null && isLive(current.driver())) {
+                    changed.add(current.driver());
+                } else if (!full) {
+                    removed.add(entry.getKey());
+                }
+            }
+            return new LiveTrackingDelta(epoch + ":" + highWater, full, changed, removed);
+        } finally {
+            pruneGate.readLock().unlock();
+        }
+    }
+
+    public List<LivePosition> getVehiclePositions() {
+        return new ArrayList<>(vehicles.values());
+    }
+
+    // Apply a driver document read from MongoDB (written by any instance); true if the live entry changed.
+    // A copy older than the entry's last location update is ignored, so a sync never moves a driver back.
+    boolean syncDriver(Driver driver) {
+        Driver candidate = liveView(driver);
+        boolean[] changed = {false};
+        changeDriver(driver.getId(), current -> {
+            Driver known = current != null ? current.driver() : null;
+            if (known != null && (isOlder(candidate, known) || sameLiveState(candidate, known))) {
+                return current;
+            }
+            changed[0] = true;
+            return newEntry(index(candidate));
+        });
+        return changed[0];
+    }
+
+    // Remove drivers missing from MongoDB, except entries changed after version (newer than the read)
+    List<String> retainDrivers(Set<String> ids, long version) {
+        List<String> removed = new ArrayList<>();
+        drivers.forEach((id, entry) -> {
+            if (entry.driver() != null && entry.version() <= version && !ids.contains(id)) {
+                removeDriver(id);
+                removed.add(id);
+            }
+        });
+        return removed;
+    }
+
+    long currentVersion() {
+        return version.get();
+    }
+
+    // Keep the newest point per vehicle; true if it replaced the vehicle's position
+    boolean putVehicle(Telemetry point) {
+        if (point.getVehicleId() == null || point.getRecordedAt() == null) {
+            return false;
+        }
+        // Buffered device uploads can arrive out of order; never move a vehicle back in time
+        LivePosition candidate = LivePosition.ofVehicle(point);
+        boolean[] changed = {false};
+        vehicles.compute(point.getVehicleId(), (id, current) -> {
+            if (current != null && !candidate.getRecordedAt().isAfter(current.getRecordedAt())) {
+                return current;
+            }
+            changed[0] = true;
+            vehicleIndex.update(id, candidate.getLatitude(), candidate.getLongitude());
+            return candidate;
+        });
+        return changed[0];
+    }
+
+    private void changeDriver(String id, UnaryOperator<DriverEntry> change) {
+        versionGate.readLock().lock();
+        try {
+            drivers.compute(id, (key, current) -> change.apply(current));
+        } finally {
+            versionGate.readLock().unlock();
+        }
+    }
+
+    private DriverEntry newEntry(Driver driver) {
+        return new DriverEntry(driver, version.incrementAndGet(), 0);
+    }
+
+    private Driver currentDriver(String id) {
+        DriverEntry entry = drivers.get(id);
+        return entry != null ? entry.driver() : null;
+    }
+
+    private boolean isLive(Driver driver) {
+        return Boolean.TRUE.equals(driver.getGpsEnabled()) && driver.getLatitude() != null && driver.getLongitude() != null;
+    }
+
+    // Keep the grid in step with a driver entry; called inside compute() so both change together
+    private Driver index(Driver driver) {
+        if (isLive(driver)) {
+            driverIndex.update(driver.getId(), driver.getLatitude(), driver.getLongitude());
+        } else {
+            driverIndex.remove(driver.getId());
+        }
+        return driver;
+    }
+
+    // The version in a cursor issued by this epoch, otherwise null
+    private Long parseCursor(String cursor) {
+        if (cursor == null || !cursor.startsWith(epoch + ":")) {
+            return null;
+        }
+        try {
+            return Long.parseLong(cursor.substring(epoch.length() + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private boolean isOlder(Driver candidate, Driver known) {
+        return candidate.getLastLocationUpdate() != null && known.getLastLocationUpdate() != null
+                && candidate.getLastLocationUpdate().isBefore(known.getLastLocationUpdate());
+    }
+
+    // Same fields as liveView copies
+    private boolean sameLiveState(Driver a, Driver b) {
+        return Objects.equals(a.getName(), b.getName())
+                && Objects.equals(a.getUsername(), b.getUsername())
+                && Objects.equals(a.getLicenseNumber(), b.getLicenseNumber())
+                && Objects.equals(a.getPhone(), b.getPhone())
+                && Objects.equals(a.getEmail(), b.getEmail())
+                && Objects.equals(a.getStatus(), b.getStatus())
+                && Objects.equals(a.getRating(), b.getRating())
+                && Objects.equals(a.getLatitude(), b.getLatitude())
+                && Objects.equals(a.getLongitude(), b.getLongitude())
+                && Objects.equals(a.getGpsEnabled(), b.getGpsEnabled())
+                && Objects.equals(a.getLastLocationUpdate(), b.getLastLocationUpdate())
+                && Objects.equals(a.getCurrentSpeed(), b.getCurrentSpeed())
+                && Objects.equals(a.getCreatedAt(), b.getCreatedAt());
+    }
+
+    private boolean hasStatus(Driver driver, String status) {
+        return driver != null && status.equalsIgnoreCase(driver.getStatus());
+    }
+
+    // Entries are shared by concurrent readers, so store an independent copy without the password
+    private Driver liveView(Driver source) {
+        Driver driver = new Driver();
+        driver.setId(source.getId());
+        driver.setName(source.getName());
+        driver.setUsername(source.getUsername());
+        driver.setLicenseNumber(source.getLicenseNumber());
+        driver.setPhone(source.getPhone());
+        driver.setEmail(source.getEmail());
+        driver.setStatus(source.getStatus());
+        driver.setRating(source.getRating());
+        driver.setLatitude(source.getLatitude());
+        driver.setLongitude(source.getLongitude());
+        driver.setGpsEnabled(source.getGpsEnabled());
+        driver.setLastLocationUpdate(source.getLastLocationUpdate());
+        driver.setCurrentSpeed(source.getCurrentSpeed());
+        driver.setCreatedAt(source.getCreatedAt());
+        return driver;
+    }
+}
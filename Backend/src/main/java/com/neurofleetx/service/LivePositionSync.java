@@ -0,0 +1,128 @@
+package com.neurofleetx.service;
+
+import com.neurofleetx.entity.Driver;
+import com.neurofleetx.entity.Telemetry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the live position store in step with writes made by other instances. Driver saves and stored
+ * telemetry only raise events in the instance that handled them, so when several instances share the
+ * database (neurofleetx.bookings.reservation.distributed=true) each one polls MongoDB for the drivers and
+ * telemetry that changed since its last poll, with an overlap for writes that commit late.
+ *
+ * Deleted drivers leave nothing to poll for, so every full-interval the complete driver list is read and
+ * drivers missing from it are dropped. Positions picked up here are pushed to SSE subscribers directly;
+ * no ingestion events are raised, so rollups are not counted twice.
+ */
+@Component
+@SuppressWarnings("null")
+public class LivePositionSync {
+
+    private static final Logger log = LoggerFactory.getLogger(LivePositionSync.class);
+
+    @Autowired
+    private LivePositionStore store;
+
+    @Autowired
+    private LivePositionBroadcaster broadcaster;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${neurofleetx.bookings.reservation.distributed:true}")
+    private boolean distributed;
+
+    @Value("${neurofleetx.live.sync.overlap-ms:10000}")
+    private long overlapMillis;
+
+    @Value("${neurofleetx.live.sync.full-interval-ms:60000}")
+    private long fullIntervalMillis;
+
+    // Start of the previous poll; the next one reads changes from here minus the overlap
+    private long watermark = System.currentTimeMillis();
+    private long lastFullSync;
+
+    @Scheduled(fixedDelayString = "${neurofleetx.live.sync.interval-ms:2000}")
+    public void sync() {
+        // The store is filled from MongoDB at startup; until that succeeded, readers use MongoDB anyway
+        if (!distributed || !store.isLoaded()) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        try {
+            if (startedAt - lastFullSync >= fullIntervalMillis) {
+                syncAllDrivers();
+                lastFullSync = startedAt;
+            } else {
+                syncChangedDrivers(toLocal(watermark - overlapMillis));
+            }
+            syncChangedVehicles(toLocal(watermark - overlapMillis));
+            watermark = startedAt;
+        } catch (RuntimeException e) {
+            // The watermark stays put, so the next poll covers this one's window too
+            log.warn("Could not sync live positions from MongoDB: {}", e.getMessage());
+        }
+    }
+
+    private void syncChangedDrivers(LocalDateTime since) {
+        Query changed = new Query(Criteria.where("lastLocationUpdate").gte(since));
+        changed.fields().exclude("password");
+        mongoTemplate.find(changed, Driver.class).forEach(this::syncDriver);
+    }
+
+    private void syncAllDrivers() {
+        // Drivers changed in this instance after this point may be missing from the read; they are kept
+        long readVersion = store.currentVersion();
+        Query all = new Query();
+        all.fields().exclude("password");
+        Set<String> ids = new HashSet<>();
+        for (Driver driver : mongoTemplate.find(all, Driver.class)) {
+            ids.add(driver.getId());
+            syncDriver(driver);
+        }
+        List<String> removed = store.retainDrivers(ids, readVersion);
+        if (!removed.isEmpty()) {
+            log.debug("Dropped {} drivers deleted by other instances", removed.size());
+        }
+    }
+
+    private void syncDriver(Driver driver) {
+        if (store.syncDriver(driver)) {
+            broadcaster.publish(LivePosition.ofDriver(driver));
+        }
+    }
+
+    private void syncChangedVehicles(LocalDateTime since) {
+        Aggregation latestPerVehicle = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("recordedAt").gte(since)),
+                Aggregation.sort(Sort.by(Sort.Order.desc("vehicleId"), Sort.Order.desc("recordedAt"))),
+                Aggregation.group("vehicleId").first(Aggregation.ROOT).as("latest"),
+                Aggregation.replaceRoot("latest"));
+        for (Telemetry point : mongoTemplate.aggregate(latestPerVehicle, Telemetry.class, Telemetry.class)) {
+            if (store.putVehicle(point)) {
+                broadcaster.publish(LivePosition.ofVehicle(point));
+            }
+        }
+    }
+
+    private static LocalDateTime toLocal(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
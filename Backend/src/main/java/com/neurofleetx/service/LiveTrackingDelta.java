@@ -0,0 +1,38 @@
+package com.neurofleetx.service;
+
+import com.neurofleetx.entity.Driver;
+
+import java.util.List;
+
+// Live-tracking changes after a client's last version; full means drivers is the complete list
+public class LiveTrackingDelta {
+
+    private final String version;
+    private final boolean full;
+    private final List<Driver> drivers;
+    private final List<String> removed;
+
+    public LiveTrackingDelta(String version, boolean full, List<Driver> drivers, List<String> removed) {
+        this.version = version;
+        this.full = full;
+        this.drivers = drivers;
+        this.removed = removed;
+    }
+
+    // Cursor ("epoch:version" high-water mark) to send as since on the next poll
+    public String getVersion() {
+        return version;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public List<Driver> getDrivers() {
+        return drivers;
+    }
+
+    public List<String> getRemoved() {
+        return removed;
+    }
+}
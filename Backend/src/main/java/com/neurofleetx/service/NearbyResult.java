@@ -0,0 +1,21 @@
+package com.neurofleetx.service;
+
+// A driver or vehicle found by a proximity search, with its distance from the search point
+public class NearbyResult<T> {
+
+    private final T item;
+    private final double distanceMeters;
+
+    public NearbyResult(T item, double distanceMeters) {
+        this.item = item;
+        this.distanceMeters = distanceMeters;
+    }
+
+    public T getItem() {
+        return item;
+    }
+
+    public double getDistanceMeters() {
+        return distanceMeters;
+    }
+}
@@ -9,6 +9,7 @@ import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 @SuppressWarnings("null")
@@ -21,6 +22,10 @@ public class RouteService {
         return routeRepository.findAll();
     }
 
+    public Stream<Route> streamAllRoutes() {
+        return routeRepository.streamAllBy();
+    }
+
     public List<Route> getRoutesByDriver(String driverId) {
         try {
             if (driverId == null || driverId.trim().isEmpty()) {
@@ -0,0 +1,217 @@
+package com.neurofleetx.service;
+
+import com.neurofleetx.entity.Telemetry;
+import com.neurofleetx.repository.TelemetryRepository;
+import com.neurofleetx.util.TelemetrySegmentCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Cold storage for telemetry: points older than the configured age are moved out of MongoDB into
+ * append-only segment files on local disk, one per vehicle per day ({dir}/{vehicleId}/{yyyy-MM-dd}.seg),
+ * encoded by {@link TelemetrySegmentCodec}. Segments are read through memory mapping.
+ *
+ * History reads on every instance look in the directory, so with several instances it must be shared
+ * storage (neurofleetx.telemetry.archive.shared=true); TelemetryArchiveJob refuses to archive otherwise.
+ */
+@Service
+@SuppressWarnings("null")
+public class TelemetryArchive {
+
+    private static final Logger log = LoggerFactory.getLogger(TelemetryArchive.class);
+
+    public static final Comparator<Telemetry> HISTORY_ORDER =
+            Comparator.comparing(Telemetry::getRecordedAt).thenComparing(Telemetry::getId);
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int READ_WINDOW = 5000;
+    private static final int DELETE_CHUNK = 1000;
+
+    @Autowired
+    private TelemetryRepository telemetryRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${neurofleetx.telemetry.archive.dir:data/telemetry-archive}")
+    private String directory;
+
+    // Move every full day older than olderThanDays from MongoDB into segment files; returns points moved.
+    // keepGoing is asked before each vehicle-day, so the caller can stop between two of them.
+    public long archiveOlderThan(int olderThanDays, BooleanSupplier keepGoing) {
+        LocalDate cutoff = LocalDate.now().minusDays(olderThanDays);
+        Telemetry oldest = mongoTemplate.findOne(
+                new Query(Criteria.where("recordedAt").lt(cutoff.atStartOfDay()))
+                        .with(Sort.by(Sort.Order.asc("recordedAt")))
+                        .limit(1),
+                Telemetry.class);
+        if (oldest == null) {
+            return 0;
+        }
+
+        long moved = 0;
+        for (LocalDate day = oldest.getRecordedAt().toLocalDate(); day.isBefore(cutoff); day = day.plusDays(1)) {
+            Query window = new Query(Criteria.where("recordedAt").gte(day.atStartOfDay()).lt(day.plusDays(1).atStartOfDay()));
+            List<String> vehicleIds = mongoTemplate.findDistinct(window, "vehicleId", Telemetry.class, String.class);
+            for (String vehicleId : vehicleIds) {
+                if (!keepGoing.getAsBoolean()) {
+                    return moved;
+                }
+                moved += archiveDay(vehicleId, day);
+            }
+        }
+        return moved;
+    }
+
+    // Append one vehicle-day to its segment, then delete exactly the archived documents from MongoDB.
+    // A crash in between leaves the points in both places; reads de-duplicate by id.
+    public long archiveDay(String vehicleId, LocalDate day) {
+        List<Telemetry> points = new ArrayList<>();
+        LocalDateTime afterRecordedAt = null;
+        String afterId = null;
+        while (true) {
+            List<Telemetry> window = telemetryRepository.findHistory(vehicleId, day.atStartOfDay(),
+                    day.plusDays(1).atStartOfDay(), afterRecordedAt, afterId, READ_WINDOW);
+            points.addAll(window);
+            if (window.size() < READ_WINDOW) {
+                break;
+            }
+            Telemetry last = window.get(window.size() - 1);
+            afterRecordedAt = last.getRecordedAt();
+            afterId = last.getId();
+        }
+        if (points.isEmpty()) {
+            return 0;
+        }
+
+        append(segmentPath(vehicleId, day), TelemetrySegmentCodec.encode(points));
+        List<String> ids = points.stream().map(Telemetry::getId).toList();
+        for (int i = 0; i < ids.size(); i += DELETE_CHUNK) {
+            telemetryRepository.deleteAllById(ids.subList(i, Math.min(i + DELETE_CHUNK, ids.size())));
+        }
+        log.info("Archived {} telemetry points of vehicle {} for {}", points.size(), vehicleId, day);
+        return points.size();
+    }
+
+    // Same contract as TelemetryRepositoryCustom.findHistory, served from the segment files
+    public List<Telemetry> findHistory(String vehicleId, LocalDateTime from, LocalDateTime to,
+                                       LocalDateTime afterRecordedAt, String afterId, int limit) {
+        List<Telemetry> result = new ArrayList<>();
+        for (LocalDate day : segmentDays(vehicleId)) {
+            LocalDateTime dayStart = day.atStartOfDay();
+            LocalDateTime dayEnd = day.plusDays(1).atStartOfDay();
+            if (to != null && !dayStart.isBefore(to)) {
+                break;
+            }
+            if ((from != null && !dayEnd.isAfter(from)) || (afterRecordedAt != null && !dayEnd.isAfter(afterRecordedAt))) {
+                continue;
+            }
+
+            List<Telemetry> points = read(segmentPath(vehicleId, day), vehicleId);
+            points.sort(HISTORY_ORDER);
+            for (Telemetry point : points) {
+                LocalDateTime time = point.getRecordedAt();
+                if ((from != null && time.isBefore(from)) || (to != null && !time.isBefore(to))) {
+                    continue;
+                }
+                if (afterRecordedAt != null && (time.isBefore(afterRecordedAt)
+                        || (time.isEqual(afterRecordedAt) && point.getId().compareTo(afterId) <= 0))) {
+                    continue;
+                }
+                result.add(point);
+                if (result.size() == limit) {
+                    return result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<LocalDate> segmentDays(String vehicleId) {
+        Path vehicleDir = vehicleDirectory(vehicleId);
+        List<LocalDate> days = new ArrayList<>();
+        if (!Files.isDirectory(vehicleDir)) {
+            return days;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(vehicleDir, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    days.add(LocalDate.parse(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                } catch (DateTimeParseException e) {
+                    log.warn("Ignoring unexpected file in telemetry archive: {}", file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        days.sort(null);
+        return days;
+    }
+
+    private List<Telemetry> read(Path segment, String vehicleId) {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed and is released when the buffer is collected
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return TelemetrySegmentCodec.decodeAll(buffer, vehicleId);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void append(Path segment, byte[] block) {
+        try {
+            Files.createDirectories(segment.getParent());
+            try (FileChannel channel = FileChannel.open(segment,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(block);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                // Must be durable before the source documents are deleted
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path segmentPath(String vehicleId, LocalDate day) {
+        return vehicleDirectory(vehicleId).resolve(day + SEGMENT_SUFFIX);
+    }
+
+    private Path vehicleDirectory(String vehicleId) {
+        // Vehicle ids are normally ObjectId hex; anything else is encoded so it cannot escape the archive directory
+        String name = vehicleId.matches("[A-Za-z0-9_-]+")
+                ? vehicleId
+                : "~" + Base64.getUrlEncoder().withoutPadding().encodeToString(vehicleId.getBytes(StandardCharsets.UTF_8));
+        return Paths.get(directory).resolve(name);
+    }
+}
@@ -0,0 +1,84 @@
+package com.neurofleetx.service;
+
+import com.neurofleetx.util.MongoLeases;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Optional nightly job that moves telemetry older than a configured age into the on-disk archive.
+ *
+ * Only the instance holding the job's lease runs it. With several instances sharing the database
+ * (neurofleetx.bookings.reservation.distributed=true), points moved to one node's local disk would vanish
+ * from history reads on the others, so the job only runs when the archive directory is declared shared.
+ */
+@Component
+public class TelemetryArchiveJob {
+
+    private static final Logger log = LoggerFactory.getLogger(TelemetryArchiveJob.class);
+
+    static final String LEASE_ID = "telemetry-archive";
+
+    @Autowired
+    private TelemetryArchive telemetryArchive;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${neurofleetx.telemetry.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${neurofleetx.telemetry.archive.older-than-days:90}")
+    private int olderThanDays;
+
+    @Value("${neurofleetx.telemetry.archive.shared:false}")
+    private boolean shared;
+
+    @Value("${neurofleetx.bookings.reservation.distributed:true}")
+    private boolean distributed;
+
+    @Value("${neurofleetx.telemetry.archive.lease-ms:600000}")
+    private long leaseMillis;
+
+    private final String owner = UUID.randomUUID().toString();
+
+    @Scheduled(cron = "${neurofleetx.telemetry.archive.cron:0 0 4 * * *}")
+    public void archiveColdTelemetry() {
+        if (!enabled) {
+            return;
+        }
+        if (distributed && !shared) {
+            log.warn("Telemetry archiving skipped: several instances share the database but the archive directory "
+                    + "is not shared storage (set neurofleetx.telemetry.archive.shared=true once it is)");
+            return;
+        }
+        if (!renewLease()) {
+            log.debug("Telemetry archiving is running on another instance");
+            return;
+        }
+        try {
+            // Renewed before each vehicle-day, so a long run never outlives the lease
+            long moved = telemetryArchive.archiveOlderThan(olderThanDays, this::renewLease);
+            log.info("Moved {} telemetry points older than {} days to the archive", moved, olderThanDays);
+        } catch (Exception e) {
+            log.warn("Telemetry archiving failed: {}", e.getMessage());
+        } finally {
+            MongoLeases.release(mongoTemplate, MongoLeases.SCHEDULER_LEASES, LEASE_ID, owner);
+        }
+    }
+
+    private boolean renewLease() {
+        try {
+            return MongoLeases.tryAcquire(mongoTemplate, MongoLeases.SCHEDULER_LEASES, LEASE_ID, owner, leaseMillis);
+        } catch (RuntimeException e) {
+            log.warn("Could not take telemetry archive lease: {}", e.getMessage());
+            return false;
+        }
+    }
+}
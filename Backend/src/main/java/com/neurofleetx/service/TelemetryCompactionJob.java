@@ -0,0 +1,131 @@
+package com.neurofleetx.service;
+
+import com.neurofleetx.entity.Telemetry;
+import com.neurofleetx.util.MongoLeases;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Optional nightly job that simplifies stored tracks once they are older than a configured age.
+ *
+ * Progress is kept in MongoDB as the last fully compacted day, and each run works through every day
+ * after it up to the cutoff, so days missed while the application was down are caught up. A day is
+ * recorded only once all its vehicles compacted; a failed day is retried in full on the next run.
+ * Only the instance holding the job's lease runs it.
+ */
+@Component
+public class TelemetryCompactionJob {
+
+    private static final Logger log = LoggerFactory.getLogger(TelemetryCompactionJob.class);
+
+    static final String LEASE_ID = "telemetry-compaction";
+    static final String PROGRESS_COLLECTION = "job_progress";
+
+    @Autowired
+    private TelemetryService telemetryService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${neurofleetx.telemetry.compaction.enabled:false}")
+    private boolean enabled;
+
+    @Value("${neurofleetx.telemetry.compaction.tolerance-meters:5}")
+    private double toleranceMeters;
+
+    @Value("${neurofleetx.telemetry.compaction.older-than-days:7}")
+    private int olderThanDays;
+
+    @Value("${neurofleetx.telemetry.compaction.lease-ms:600000}")
+    private long leaseMillis;
+
+    private final String owner = UUID.randomUUID().toString();
+
+    @Scheduled(cron = "${neurofleetx.telemetry.compaction.cron:0 30 3 * * *}")
+    public void compactExpiredDays() {
+        if (!enabled) {
+            return;
+        }
+        if (!renewLease()) {
+            log.debug("Telemetry compaction is running on another instance");
+            return;
+        }
+        try {
+            LocalDate cutoff = LocalDate.now().minusDays(olderThanDays);
+            LocalDate day = firstUncompactedDay(cutoff);
+            for (; day != null && day.isBefore(cutoff); day = day.plusDays(1)) {
+                if (!compactDay(day)) {
+                    break;
+                }
+                mongoTemplate.upsert(new Query(Criteria.where("_id").is(LEASE_ID)),
+                        new Update().set("compactedThrough", day.toString()), PROGRESS_COLLECTION);
+            }
+        } finally {
+            MongoLeases.release(mongoTemplate, MongoLeases.SCHEDULER_LEASES, LEASE_ID, owner);
+        }
+    }
+
+    // Compacts every vehicle's track of one day; false if a vehicle failed or the lease was lost
+    private boolean compactDay(LocalDate day) {
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = from.plusDays(1);
+        Query window = new Query(Criteria.where("recordedAt").gte(from).lt(to));
+        List<String> vehicleIds = mongoTemplate.findDistinct(window, "vehicleId", Telemetry.class, String.class);
+
+        long removed = 0;
+        for (String vehicleId : vehicleIds) {
+            // Renewed per vehicle, so a long catch-up never outlives the lease
+            if (!renewLease()) {
+                log.warn("Telemetry compaction lease lost; stopping at {}", day);
+                return false;
+            }
+            try {
+                removed += telemetryService.compactTrajectory(vehicleId, from, to, toleranceMeters);
+            } catch (Exception e) {
+                log.warn("Trajectory compaction failed for vehicle {} on {}, retrying the day next run: {}",
+                        vehicleId, day, e.getMessage());
+                return false;
+            }
+        }
+        log.info("Compacted telemetry for {} on {} vehicles, removed {} points", day, vehicleIds.size(), removed);
+        return true;
+    }
+
+    // The day after the recorded progress, or the oldest stored day on the first run; null if nothing is due
+    private LocalDate firstUncompactedDay(LocalDate cutoff) {
+        Document progress = mongoTemplate.findById(LEASE_ID, Document.class, PROGRESS_COLLECTION);
+        if (progress != null && progress.getString("compactedThrough") != null) {
+            return LocalDate.parse(progress.getString("compactedThrough")).plusDays(1);
+        }
+        Telemetry oldest = mongoTemplate.findOne(
+                new Query(Criteria.where("recordedAt").lt(cutoff.atStartOfDay()))
+                        .with(Sort.by(Sort.Order.asc("recordedAt")))
+                        .limit(1),
+                Telemetry.class);
+        return oldest != null ? oldest.getRecordedAt().toLocalDate() : null;
+    }
+
+    private boolean renewLease() {
+        try {
+            return MongoLeases.tryAcquire(mongoTemplate, MongoLeases.SCHEDULER_LEASES, LEASE_ID, owner, leaseMillis);
+        } catch (RuntimeException e) {
+            log.warn("Could not take telemetry compaction lease: {}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.neurofleetx.service;
+
+import com.neurofleetx.entity.Telemetry;
+import com.neurofleetx.util.DeviceFrameCodec;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in TCP listener for tracking devices that speak the binary {@link DeviceFrameCodec} format.
+ *
+ * One selector thread accepts connections and decodes frames; every read yields a batch of points
+ * that a small worker pool hands to {@link TelemetryService}, so device data goes through the same
+ * persistence path (write-behind buffer, bulk insert, ingest events) as the REST endpoints.
+ * Frames are fire-and-forget: there is no acknowledgement, and a malformed frame is skipped.
+ *
+ * At most queue-capacity batches are pending at a time. When the limit is reached the selector stops
+ * reading from connections that have data (their OP_READ interest is cleared) until a worker finishes
+ * a batch, so unread bytes stay in the socket buffers and TCP flow control slows the devices down.
+ * Storage work never runs on the selector thread.
+ */
+@Component
+public class TelemetryDeviceListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TelemetryDeviceListener.class);
+
+    private static final int READ_BUFFER_BYTES = 2 * (DeviceFrameCodec.LENGTH_PREFIX_BYTES + DeviceFrameCodec.MAX_FRAME_BYTES);
+
+    @Autowired
+    private TelemetryService telemetryService;
+
+    @Value("${neurofleetx.telemetry.device-listener.enabled:false}")
+    private boolean enabled;
+
+    @Value("${neurofleetx.telemetry.device-listener.port:5055}")
+    private int port;
+
+    @Value("${neurofleetx.telemetry.device-listener.workers:4}")
+    private int workers;
+
+    @Value("${neurofleetx.telemetry.device-listener.queue-capacity:1000}")
+    private int queueCapacity;
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private ThreadPoolExecutor executor;
+    private Thread selectorThread;
+    private volatile boolean running;
+
+    private final AtomicLong connections = new AtomicLong();
+    private final AtomicLong openConnections = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicLong framesReceived = new AtomicLong();
+    private final AtomicLong framesRejected = new AtomicLong();
+    private final AtomicLong pointsFailed = new AtomicLong();
+    private final AtomicLong readsPaused = new AtomicLong();
+
+    // Batches handed to the workers and not finished yet; only the selector thread increments it
+    private final AtomicInteger pendingBatches = new AtomicInteger();
+    // Connections whose reads are paused until pendingBatches drops below the limit
+    private final Queue<SelectionKey> paused = new ConcurrentLinkedQueue<>();
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        // pendingBatches never exceeds queueCapacity, so the queue cannot overflow
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity));
+
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        running = true;
+        selectorThread = new Thread(this::runSelector, "telemetry-device-listener");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+        log.info("Telemetry device listener accepting binary frames on port {}", port);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (selectorThread == null) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join(5000);
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", running);
+        stats.put("port", enabled ? port : null);
+        stats.put("connections", connections.get());
+        stats.put("openConnections", openConnections.get());
+        stats.put("bytesReceived", bytesReceived.get());
+        stats.put("framesReceived", framesReceived.get());
+        stats.put("framesRejected", framesRejected.get());
+        stats.put("pointsFailed", pointsFailed.get());
+        stats.put("pendingBatches", pendingBatches.get());
+        stats.put("pausedConnections", paused.size());
+        stats.put("readsPaused", readsPaused.get());
+        return stats;
+    }
+
+    private void runSelector() {
+        while (running) {
+            try {
+                // Before blocking: a connection paused in the previous pass may already have room
+                resumeReads();
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        read(key);
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Telemetry device listener error: {}", e.getMessage());
+            }
+        }
+        closeAll();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_READ, ByteBuffer.allocate(READ_BUFFER_BYTES));
+        connections.incrementAndGet();
+        openConnections.incrementAndGet();
+    }
+
+    private void read(SelectionKey key) {
+        if (pendingBatches.get() >= queueCapacity) {
+            // Leave the bytes in the socket until a worker catches up
+            key.interestOps(0);
+            paused.add(key);
+            readsPaused.incrementAndGet();
+            return;
+        }
+        SocketChannel channel = (SocketChannel) key.channel();
+        ByteBuffer buffer = (ByteBuffer) key.attachment();
+        try {
+            int read = channel.read(buffer);
+            if (read < 0) {
+                close(key);
+                return;
+            }
+            bytesReceived.addAndGet(read);
+        } catch (IOException e) {
+            close(key);
+            return;
+        }
+
+        List<Telemetry> batch = new ArrayList<>();
+        buffer.flip();
+        while (buffer.remaining() >= DeviceFrameCodec.LENGTH_PREFIX_BYTES) {
+            int length = Short.toUnsignedInt(buffer.getShort(buffer.position()));
+            if (buffer.remaining() < DeviceFrameCodec.LENGTH_PREFIX_BYTES + length) {
+                break;
+            }
+            buffer.position(buffer.position() + DeviceFrameCodec.LENGTH_PREFIX_BYTES);
+            ByteBuffer body = buffer.slice(buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            try {
+                batch.add(DeviceFrameCodec.decode(body));
+                framesReceived.incrementAndGet();
+            } catch (IllegalArgumentException | BufferUnderflowException e) {
+                framesRejected.incrementAndGet();
+            }
+        }
+        buffer.compact();
+
+        if (!batch.isEmpty()) {
+            pendingBatches.incrementAndGet();
+            executor.execute(() -> {
+                try {
+                    persist(batch);
+                } finally {
+                    // Wake the selector to resume paused connections now that there is room
+                    if (pendingBatches.decrementAndGet() < queueCapacity && !paused.isEmpty()) {
+                        selector.wakeup();
+                    }
+                }
+            });
+        }
+    }
+
+    private void resumeReads() {
+        while (pendingBatches.get() < queueCapacity) {
+            SelectionKey key = paused.poll();
+            if (key == null) {
+                return;
+            }
+            if (key.isValid()) {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+    }
+
+    private void persist(List<Telemetry> batch) {
+        try {
+            if (batch.size() == 1) {
+                telemetryService.submitTelemetry(batch.get(0));
+                return;
+            }
+            // Several frames arrived in one read: queue them individually when write-behind is on,
+            // otherwise store them with one bulk insert
+            List<Telemetry> unbuffered = new ArrayList<>();
+            for (Telemetry point : batch) {
+                if (!telemetryService.offerTelemetry(point)) {
+                    unbuffered.add(point);
+                }
+            }
+            if (!unbuffered.isEmpty()) {
+                pointsFailed.addAndGet(telemetryService.createTelemetryBatch(unbuffered).size());
+            }
+        } catch (Exception e) {
+            pointsFailed.addAndGet(batch.size());
+            log.warn("Failed to store {} device points: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private void close(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // Already closed by the peer
+        }
+        openConnections.decrementAndGet();
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            try {
+                key.channel().close();
+            } catch (IOException e) {
+                // Shutting down anyway
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            log.warn("Failed to close device listener selector: {}", e.getMessage());
+        }
+        openConnections.set(0);
+    }
+}
@@ -0,0 +1,25 @@
+package com.neurofleetx.service;
+
+import com.neurofleetx.entity.Telemetry;
+
+import java.util.List;
+
+// One page of a vehicle's telemetry history; nextCursor is null on the last page
+public class TelemetryPage {
+
+    private final List<Telemetry> data;
+    private final String nextCursor;
+
+    public TelemetryPage(List<Telemetry> data, String nextCursor) {
+        this.data = data;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Telemetry> getData() {
+        return data;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,204 @@
+package com.neurofleetx.service;
+
+import com.neurofleetx.entity.Telemetry;
+import com.neurofleetx.entity.TelemetryRollup;
+import com.neurofleetx.event.TelemetryIngestedEvent;
+import com.neurofleetx.repository.TelemetryRollupRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Maintains per-vehicle minute, hour and day speed rollups incrementally as telemetry is ingested,
+ * and answers chart queries from them instead of raw points.
+ *
+ * Ingest events are published on the thread that stored the points (an HTTP request, the write-behind
+ * flusher or a device listener worker), so the bulk upsert is handed to a small writer pool with a
+ * bounded queue instead of running there. Bucket updates are $inc/$max, so their order does not matter.
+ * When the queue is full the publishing thread runs the upsert itself, which slows ingestion down
+ * rather than dropping rollup updates. Rollups therefore trail ingestion by the queue's backlog.
+ */
+@Service
+@SuppressWarnings("null")
+public class TelemetryRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(TelemetryRollupService.class);
+
+    enum Resolution {
+        MINUTE(ChronoUnit.MINUTES),
+        HOUR(ChronoUnit.HOURS),
+        DAY(ChronoUnit.DAYS);
+
+        private final ChronoUnit unit;
+
+        Resolution(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        String value() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        LocalDateTime bucketStart(LocalDateTime time) {
+            return time.truncatedTo(unit);
+        }
+
+        long bucketsBetween(LocalDateTime from, LocalDateTime to) {
+            return Duration.between(from, to).toMillis() / unit.getDuration().toMillis() + 1;
+        }
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private TelemetryRollupRepository telemetryRollupRepository;
+
+    @Value("${neurofleetx.telemetry.rollups.max-buckets:1000}")
+    private int maxBuckets;
+
+    @Value("${neurofleetx.telemetry.rollups.writer-threads:2}")
+    private int writerThreads;
+
+    @Value("${neurofleetx.telemetry.rollups.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor writer;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        // Rejected (queue full, or points still flushed during shutdown): run on the publishing thread
+        RejectedExecutionHandler runOnCaller = (task, executor) -> task.run();
+        writer = new ThreadPoolExecutor(writerThreads, writerThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "telemetry-rollups-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, runOnCaller);
+    }
+
+    // Let queued updates reach MongoDB before the application exits
+    @PreDestroy
+    public void stop() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Telemetry rollup writer stopped with {} updates not applied", writer.getQueue().size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @EventListener
+    public void onTelemetryIngested(TelemetryIngestedEvent event) {
+        List<Telemetry> points = event.getTelemetry();
+        writer.execute(() -> {
+            try {
+                record(points);
+            } catch (Exception e) {
+                // Rollups are derived data; never fail ingestion because of them
+                log.warn("Failed to update telemetry rollups for {} points: {}", points.size(), e.getMessage());
+            }
+        });
+    }
+
+    public int getPendingUpdates() {
+        return writer.getQueue().size();
+    }
+
+    // Fold the points into their buckets in memory, then apply all bucket deltas with one bulk upsert
+    public void record(List<Telemetry> points) {
+        Map<String, Bucket> buckets = new HashMap<>();
+        for (Telemetry point : points) {
+            if (point.getVehicleId() == null || point.getRecordedAt() == null) {
+                continue;
+            }
+            for (Resolution resolution : Resolution.values()) {
+                LocalDateTime start = resolution.bucketStart(point.getRecordedAt());
+                String id = point.getVehicleId() + "|" + resolution.value() + "|" + start;
+                buckets.computeIfAbsent(id, key -> new Bucket(point.getVehicleId(), resolution, start))
+                        .add(point.getSpeed());
+            }
+        }
+        if (buckets.isEmpty()) {
+            return;
+        }
+
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TelemetryRollup.class);
+        buckets.forEach((id, bucket) -> ops.upsert(
+                new Query(Criteria.where("_id").is(id)),
+                new Update()
+                        .setOnInsert("vehicleId", bucket.vehicleId)
+                        .setOnInsert("resolution", bucket.resolution.value())
+                        .setOnInsert("bucketStart", bucket.start)
+                        .inc("count", bucket.count)
+                        .inc("speedSum", bucket.speedSum)
+                        .max("maxSpeed", bucket.maxSpeed)));
+        ops.execute();
+    }
+
+    // Finest resolution whose bucket count for the range stays within max-buckets, unless one is requested
+    public String chooseResolution(LocalDateTime from, LocalDateTime to, String requested) {
+        if (requested != null && !requested.isBlank()) {
+            return Resolution.valueOf(requested.toUpperCase(Locale.ROOT)).value();
+        }
+        for (Resolution resolution : Resolution.values()) {
+            if (resolution.bucketsBetween(from, to) <= maxBuckets) {
+                return resolution.value();
+            }
+        }
+        return Resolution.DAY.value();
+    }
+
+    public List<TelemetryRollup> getRollups(String vehicleId, LocalDateTime from, LocalDateTime to, String resolution) {
+        Resolution res = Resolution.valueOf(resolution.toUpperCase(Locale.ROOT));
+        // Include the bucket that contains "from"
+        return telemetryRollupRepository.findBuckets(vehicleId, res.value(), res.bucketStart(from), to);
+    }
+
+    private static final class Bucket {
+        private final String vehicleId;
+        private final Resolution resolution;
+        private final LocalDateTime start;
+        private long count;
+        private double speedSum;
+        private double maxSpeed;
+
+        Bucket(String vehicleId, Resolution resolution, LocalDateTime start) {
+            this.vehicleId = vehicleId;
+            this.resolution = resolution;
+            this.start = start;
+        }
+
+        void add(double speed) {
+            count++;
+            speedSum += speed;
+            maxSpeed = Math.max(maxSpeed, speed);
+        }
+    }
+}
@@ -1,32 +1,221 @@
 package com.neurofleetx.service;
 
 import com.neurofleetx.entity.Telemetry;
+import com.neurofleetx.event.TelemetryIngestedEvent;
 import com.neurofleetx.repository.TelemetryRepository;
+import com.neurofleetx.util.TrajectorySimplifier;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 @SuppressWarnings("null")
 public class TelemetryService {
     
+    private static final int COMPACTION_WINDOW = 5000;
+    
     @Autowired
     private TelemetryRepository telemetryRepository;
     
+    @Autowired
+    private TelemetryWriteBuffer telemetryWriteBuffer;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private TelemetryArchive telemetryArchive;
+    
+    @Value("${neurofleetx.telemetry.history.default-limit:500}")
+    private int defaultPageSize;
+    
+    @Value("${neurofleetx.telemetry.history.max-limit:5000}")
+    private int maxPageSize;
+    
     public List<Telemetry> getAllTelemetry() {
         return telemetryRepository.findAll();
     }
     
-    public List<Telemetry> getTelemetryByVehicleId(String vehicleId) {
-        return telemetryRepository.findByVehicleId(vehicleId);
+    public Stream<Telemetry> streamAllTelemetry() {
+        return telemetryRepository.streamAllBy();
+    }
+    
+    // Page through a vehicle's history in recordedAt order; pass the previous page's nextCursor as after.
+    // With simplifyMeters the page is reduced to the points needed to draw the track within that tolerance.
+    public TelemetryPage getTelemetryByVehicleId(String vehicleId, LocalDateTime from, LocalDateTime to,
+                                                 Integer limit, String after, Double simplifyMeters) {
+        int pageSize = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        
+        LocalDateTime afterRecordedAt = null;
+        String afterId = null;
+        if (after != null && !after.isBlank()) {
+            String[] cursor = decodeCursor(after);
+            afterRecordedAt = parseCursorTime(cursor[0]);
+            afterId = cursor[1];
+        }
+        
+        // Fetch one extra row to learn whether another page exists
+        List<Telemetry> rows = mergeHistory(
+                telemetryArchive.findHistory(vehicleId, from, to, afterRecordedAt, afterId, pageSize + 1),
+                telemetryRepository.findHistory(vehicleId, from, to, afterRecordedAt, afterId, pageSize + 1),
+                pageSize + 1);
+        String nextCursor = null;
+        List<Telemetry> page = rows;
+        if (rows.size() > pageSize) {
+            page = rows.subList(0, pageSize);
+            Telemetry last = page.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getRecordedAt(), last.getId());
+        }
+        if (simplifyMeters != null) {
+            page = simplify(page, simplifyMeters);
+        }
+        return new TelemetryPage(page, nextCursor);
+    }
+    
+    // Permanently remove points of a vehicle's track in [from, to) that lie within toleranceMeters of the
+    // simplified line. Works window by window so memory stays bounded; returns the number of points removed.
+    public long compactTrajectory(String vehicleId, LocalDateTime from, LocalDateTime to, double toleranceMeters) {
+        long removed = 0;
+        LocalDateTime afterRecordedAt = null;
+        String afterId = null;
+        while (true) {
+            List<Telemetry> window = telemetryRepository.findHistory(vehicleId, from, to, afterRecordedAt, afterId, COMPACTION_WINDOW);
+            if (window.isEmpty()) {
+                break;
+            }
+            
+            List<Telemetry> kept = simplify(window, toleranceMeters);
+            if (kept.size() < window.size()) {
+                Set<String> keptIds = new HashSet<>();
+                kept.forEach(point -> keptIds.add(point.getId()));
+                List<String> dropped = window.stream()
+                        .map(Telemetry::getId)
+                        .filter(id -> !keptIds.contains(id))
+                        .toList();
+                telemetryRepository.deleteAllById(dropped);
+                removed += dropped.size();
+            }
+            
+            if (window.size() < COMPACTION_WINDOW) {
+                break;
+            }
+            Telemetry last = window.get(window.size() - 1);
+            afterRecordedAt = last.getRecordedAt();
+            afterId = last.getId();
+        }
+        return removed;
+    }
+    
+    // Merge two (recordedAt, id)-ordered lists, keeping the first occurrence of an id
+    // (a point can briefly exist in both the archive and MongoDB while it is being moved)
+    private List<Telemetry> mergeHistory(List<Telemetry> archived, List<Telemetry> live, int limit) {
+        if (archived.isEmpty()) {
+            return live;
+        }
+        List<Telemetry> merged = new ArrayList<>(limit);
+        int a = 0;
+        int l = 0;
+        String lastId = null;
+        while (merged.size() < limit && (a < archived.size() || l < live.size())) {
+            Telemetry next;
+            if (l == live.size() || (a < archived.size()
+                    && TelemetryArchive.HISTORY_ORDER.compare(archived.get(a), live.get(l)) <= 0)) {
+                next = archived.get(a++);
+            } else {
+                next = live.get(l++);
+            }
+            if (!next.getId().equals(lastId)) {
+                merged.add(next);
+                lastId = next.getId();
+            }
+        }
+        return merged;
+    }
+    
+    private List<Telemetry> simplify(List<Telemetry> points, double toleranceMeters) {
+        return TrajectorySimplifier.simplify(points, toleranceMeters, Telemetry::getLatitude, Telemetry::getLongitude);
     }
     
     public Telemetry createTelemetry(Telemetry telemetry) {
-        return telemetryRepository.save(telemetry);
+        Telemetry saved = telemetryRepository.save(telemetry);
+        eventPublisher.publishEvent(new TelemetryIngestedEvent(List.of(saved)));
+        return saved;
+    }
+    
+    // Hand a point to the write-behind buffer when enabled; returns false if it was written synchronously
+    // instead (buffer disabled or full)
+    public boolean submitTelemetry(Telemetry telemetry) {
+        if (telemetryWriteBuffer.offer(telemetry)) {
+            return true;
+        }
+        createTelemetry(telemetry);
+        return false;
+    }
+    
+    // Hand a point to the write-behind buffer only; false when it is disabled or full
+    public boolean offerTelemetry(Telemetry telemetry) {
+        return telemetryWriteBuffer.offer(telemetry);
+    }
+    
+    public Map<String, Object> getIngestStats() {
+        return telemetryWriteBuffer.getStats();
+    }
+    
+    // Persist a batch of points in one bulk write; returns failures keyed by position in the batch
+    public Map<Integer, String> createTelemetryBatch(List<Telemetry> telemetry) {
+        Map<Integer, String> failures = telemetryRepository.insertUnordered(telemetry);
+        TelemetryIngestedEvent event = TelemetryIngestedEvent.forStored(telemetry, failures);
+        if (!event.getTelemetry().isEmpty()) {
+            eventPublisher.publishEvent(event);
+        }
+        return failures;
+    }
+    
+    // Migration for documents written while coordinates were BigDecimal (Decimal128)
+    public long migrateLegacyCoordinates() {
+        return telemetryRepository.convertDecimalCoordinates();
     }
     
     public void deleteTelemetry(String id) {
         telemetryRepository.deleteById(id);
     }
+    
+    // Cursors are opaque to clients: base64url of "<recordedAt>|<id>" of the last point returned
+    private String encodeCursor(LocalDateTime recordedAt, String id) {
+        String raw = recordedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+    
+    private LocalDateTime parseCursorTime(String value) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
 }
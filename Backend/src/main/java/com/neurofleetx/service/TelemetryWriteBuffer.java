@@ -0,0 +1,209 @@
+package com.neurofleetx.service;
+
+import com.neurofleetx.entity.Telemetry;
+import com.neurofleetx.event.TelemetryIngestedEvent;
+import com.neurofleetx.repository.TelemetryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in write-behind buffer for telemetry. Points are queued in a bounded in-memory
+ * queue and a single flusher thread group-commits them as one unordered bulk insert
+ * once either the batch size or the maximum delay is reached.
+ * Points still queued at shutdown are drained before the application exits.
+ */
+@Component
+public class TelemetryWriteBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(TelemetryWriteBuffer.class);
+
+    @Autowired
+    private TelemetryRepository telemetryRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${neurofleetx.telemetry.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${neurofleetx.telemetry.write-behind.capacity:50000}")
+    private int capacity;
+
+    @Value("${neurofleetx.telemetry.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${neurofleetx.telemetry.write-behind.max-delay-ms:50}")
+    private long maxDelayMs;
+
+    @Value("${neurofleetx.telemetry.write-behind.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    private BlockingQueue<Telemetry> queue;
+    private Thread flusher;
+    private volatile boolean running;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private volatile long lastFlushNanos;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(capacity);
+        running = true;
+        flusher = new Thread(this::runFlusher, "telemetry-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Telemetry write-behind enabled (capacity={}, batchSize={}, maxDelayMs={})",
+                capacity, batchSize, maxDelayMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        try {
+            flusher.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("Telemetry write-behind stopped with {} points not persisted", queue.size());
+        }
+    }
+
+    // Queue a point for the next group commit; false when the buffer is disabled, stopping or full
+    public boolean offer(Telemetry telemetry) {
+        if (!running) {
+            return false;
+        }
+        // Id is assigned now so the caller can return it before the point is written
+        if (telemetry.getId() == null) {
+            telemetry.setId(new ObjectId().toHexString());
+        }
+        if (queue.offer(telemetry)) {
+            enqueued.incrementAndGet();
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    public Map<String, Object> getStats() {
+        long flushCount = flushes.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", running);
+        stats.put("queueDepth", queue != null ? queue.size() : 0);
+        stats.put("capacity", enabled ? capacity : 0);
+        stats.put("enqueued", enqueued.get());
+        stats.put("rejected", rejected.get());
+        stats.put("flushed", flushed.get());
+        stats.put("failed", failed.get());
+        stats.put("flushes", flushCount);
+        stats.put("lastFlushMs", lastFlushNanos / 1_000_000.0);
+        stats.put("avgFlushMs", flushCount == 0 ? 0.0 : totalFlushNanos.get() / (double) flushCount / 1_000_000.0);
+        stats.put("maxFlushMs", maxFlushNanos.get() / 1_000_000.0);
+        return stats;
+    }
+
+    private void runFlusher() {
+        List<Telemetry> batch = new ArrayList<>(batchSize);
+        long maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+
+        // Keep going after stop() until the queue is drained
+        while (running || !queue.isEmpty()) {
+            try {
+                Telemetry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Group commit: fill the batch until it is full or the oldest point is maxDelay old
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Telemetry next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Telemetry> batch) {
+        long start = System.nanoTime();
+        try {
+            // Points the server rejects come back as failures; everything else was stored
+            Map<Integer, String> failures = telemetryRepository.insertUnordered(batch);
+            flushed.addAndGet(batch.size() - failures.size());
+            failed.addAndGet(failures.size());
+            if (!failures.isEmpty()) {
+                log.warn("Telemetry write-behind flush rejected {} of {} points", failures.size(), batch.size());
+            }
+            publish(TelemetryIngestedEvent.forStored(batch, failures));
+        } catch (Exception e) {
+            // Outcome unknown: on a replica set the driver has already retried a transient error once. Some
+            // points may be stored, and the time-series telemetry collection has no unique _id index, so
+            // resending the batch could store them twice; it is counted as failed instead
+            failed.addAndGet(batch.size());
+            log.error("Telemetry write-behind flush of {} points failed", batch.size(), e);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        lastFlushNanos = elapsed;
+        flushes.incrementAndGet();
+        totalFlushNanos.addAndGet(elapsed);
+        maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    private void publish(TelemetryIngestedEvent event) {
+        if (event.getTelemetry().isEmpty()) {
+            return;
+        }
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (Exception e) {
+            // Points are already stored; a failing listener must not count the batch as failed
+            log.warn("Telemetry ingest listener failed: {}", e.getMessage());
+        }
+    }
+}
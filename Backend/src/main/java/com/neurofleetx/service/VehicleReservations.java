@@ -0,0 +1,115 @@
+package com.neurofleetx.service;
+
+import com.neurofleetx.util.MongoLeases;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes booking writes per vehicle, so a conflict check and the save that follows it cannot
+ * interleave with another booking of the same vehicle. Bookings of different vehicles never wait
+ * for each other.
+ *
+ * Within this instance a vehicle maps to one of a fixed set of striped locks. With distributed
+ * reservations on, the holder also takes a short lease (see MongoLeases) on a per-vehicle document,
+ * which other instances wait for; an expired lease is simply taken over.
+ */
+@Service
+@SuppressWarnings("null")
+public class VehicleReservations {
+
+    static final String COLLECTION = "vehicle_reservations";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${neurofleetx.bookings.reservation.stripes:64}")
+    private int stripeCount;
+
+    @Value("${neurofleetx.bookings.reservation.distributed:true}")
+    private boolean distributed;
+
+    @Value("${neurofleetx.bookings.reservation.lease-ms:10000}")
+    private long leaseMillis;
+
+    @Value("${neurofleetx.bookings.reservation.wait-ms:5000}")
+    private long waitMillis;
+
+    private ReentrantLock[] stripes;
+
+    @PostConstruct
+    void init() {
+        stripes = new ReentrantLock[Math.max(1, stripeCount)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    // True when other instances may book too, so checks must read MongoDB rather than local memory
+    public boolean isDistributed() {
+        return distributed;
+    }
+
+    // Run action while holding the vehicle's reservation; fails if it cannot be had within wait-ms
+    public <T> T withReservation(String vehicleId, Supplier<T> action) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        ReentrantLock lock = stripes[Math.floorMod(spread(vehicleId.hashCode()), stripes.length)];
+        try {
+            if (!lock.tryLock(waitMillis, TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException("Vehicle is being booked by another request, please try again");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while reserving vehicle");
+        }
+        try {
+            if (!distributed) {
+                return action.get();
+            }
+            String token = acquireLease(vehicleId, deadline);
+            try {
+                return action.get();
+            } finally {
+                releaseLease(vehicleId, token);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private String acquireLease(String vehicleId, long deadline) {
+        // A fresh owner token per acquisition, so a lease never counts as already ours
+        String token = UUID.randomUUID().toString();
+        long backoffMillis = 5;
+        while (true) {
+            if (MongoLeases.tryAcquire(mongoTemplate, COLLECTION, vehicleId, token, leaseMillis)) {
+                return token;
+            }
+            if (System.nanoTime() >= deadline) {
+                throw new RuntimeException("Vehicle is being booked by another request, please try again");
+            }
+            try {
+                Thread.sleep(backoffMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while reserving vehicle");
+            }
+            backoffMillis = Math.min(backoffMillis * 2, 100);
+        }
+    }
+
+    private void releaseLease(String vehicleId, String token) {
+        MongoLeases.release(mongoTemplate, COLLECTION, vehicleId, token);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
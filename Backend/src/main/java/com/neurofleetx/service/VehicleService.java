@@ -1,20 +1,49 @@
 package com.neurofleetx.service;
 
+import com.neurofleetx.entity.Telemetry;
 import com.neurofleetx.entity.Vehicle;
+import com.neurofleetx.event.TelemetryIngestedEvent;
 import com.neurofleetx.repository.VehicleRepository;
+import com.neurofleetx.util.GeoUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @SuppressWarnings("null")
 public class VehicleService {
     
+    private static final Logger log = LoggerFactory.getLogger(VehicleService.class);
+    
     @Autowired
     private VehicleRepository vehicleRepository;
     
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private LivePositionStore livePositionStore;
+    
+    @Autowired
+    private BookingService bookingService;
+    
     public List<Vehicle> getAllVehicles() {
         return vehicleRepository.findAll();
     }
@@ -23,6 +52,69 @@ public class VehicleService {
         return vehicleRepository.findById(id);
     }
     
+    // Latest telemetry position of every vehicle, served from memory
+    public List<LivePosition> getVehiclePositions() {
+        return livePositionStore.getVehiclePositions();
+    }
+    
+    // Vehicles whose latest telemetry is within radiusMeters, nearest first; falls back to the
+    // coordinates stored on the vehicle documents (2dsphere index, kept at the latest telemetry point by
+    // onTelemetryIngested) while the live store is not loaded
+    public List<NearbyResult<LivePosition>> findNearbyVehicles(double latitude, double longitude, double radiusMeters, int limit) {
+        if (livePositionStore.isLoaded()) {
+            return livePositionStore.findNearbyVehicles(latitude, longitude, radiusMeters, limit);
+        }
+        List<NearbyResult<LivePosition>> result = new ArrayList<>();
+        for (Vehicle vehicle : vehicleRepository.findNear(longitude, latitude, radiusMeters, PageRequest.of(0, limit))) {
+            LivePosition position = new LivePosition(LivePosition.VEHICLE, vehicle.getId(),
+                    vehicle.getLatitude(), vehicle.getLongitude(), 0, true, null);
+            double distance = GeoUtils.haversineMeters(latitude, longitude, vehicle.getLatitude(), vehicle.getLongitude());
+            result.add(new NearbyResult<>(position, distance));
+        }
+        return result;
+    }
+    
+    // Copy each vehicle's newest stored point onto its document: one bulk update per batch, and a point
+    // older than the position already stored (a late device upload) changes nothing
+    @EventListener
+    public void onTelemetryIngested(TelemetryIngestedEvent event) {
+        Map<String, Telemetry> newest = new HashMap<>();
+        for (Telemetry point : event.getTelemetry()) {
+            if (point.getVehicleId() != null && point.getRecordedAt() != null) {
+                newest.merge(point.getVehicleId(), point,
+                        (a, b) -> b.getRecordedAt().isAfter(a.getRecordedAt()) ? b : a);
+            }
+        }
+        if (newest.isEmpty()) {
+            return;
+        }
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Vehicle.class);
+        newest.forEach((vehicleId, point) -> ops.updateOne(
+                new Query(Criteria.where("_id").is(vehicleId).orOperator(
+                        Criteria.where("positionRecordedAt").exists(false),
+                        Criteria.where("positionRecordedAt").lt(point.getRecordedAt()))),
+                new Update()
+                        .set("latitude", point.getLatitude())
+                        .set("longitude", point.getLongitude())
+                        .set("location", new GeoJsonPoint(point.getLongitude(), point.getLatitude()))
+                        .set("positionRecordedAt", point.getRecordedAt())));
+        try {
+            ops.execute();
+        } catch (RuntimeException e) {
+            // The points themselves are stored; only the fallback position lags
+            log.warn("Could not update positions of {} vehicles: {}", newest.size(), e.getMessage());
+        }
+    }
+    
+    // Vehicles with no pending, confirmed or active booking overlapping [start, end); one vehicle read
+    // plus one occupancy lookup instead of an availability query per vehicle
+    public List<Vehicle> getAvailableVehicles(LocalDateTime start, LocalDateTime end) {
+        Set<String> busy = bookingService.findBusyVehicleIds(start, end);
+        return vehicleRepository.findAll().stream()
+                .filter(vehicle -> !busy.contains(vehicle.getId()))
+                .toList();
+    }
+    
     public Vehicle createVehicle(Vehicle vehicle) {
         return vehicleRepository.save(vehicle);
     }
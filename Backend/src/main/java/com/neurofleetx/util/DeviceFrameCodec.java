@@ -0,0 +1,93 @@
+package com.neurofleetx.util;
+
+import com.neurofleetx.entity.Telemetry;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Binary position-report frame sent by tracking devices over TCP. All integers are big-endian.
+ *
+ * <pre>
+ * u16  frame length (bytes that follow this field)
+ * u8   message type, 1 = position report
+ * u8   vehicleId length N, then N bytes UTF-8
+ * u8   driverId length M (0 = none), then M bytes UTF-8
+ * i64  recordedAt, epoch milliseconds (0 = time of receipt)
+ * i32  latitude  x 1e7
+ * i32  longitude x 1e7
+ * u16  speed x 100 (km/h)
+ * </pre>
+ *
+ * A report with 24-character vehicle and driver ids is 71 bytes, against about 170 bytes of compact JSON.
+ */
+public final class DeviceFrameCodec {
+
+    public static final int LENGTH_PREFIX_BYTES = 2;
+    public static final int MAX_FRAME_BYTES = 0xFFFF;
+
+    public static final byte TYPE_POSITION = 1;
+
+    private static final double COORDINATE_SCALE = 1e7;
+    private static final double SPEED_SCALE = 100;
+
+    private DeviceFrameCodec() {
+    }
+
+    // Encode a full frame including the length prefix; the inverse of decode, for Java clients of the listener
+    public static byte[] encode(Telemetry point, long recordedAtMillis) {
+        byte[] vehicleId = point.getVehicleId().getBytes(StandardCharsets.UTF_8);
+        byte[] driverId = point.getDriverId() == null ? new byte[0] : point.getDriverId().getBytes(StandardCharsets.UTF_8);
+        int length = 1 + 1 + vehicleId.length + 1 + driverId.length + 8 + 4 + 4 + 2;
+
+        ByteBuffer frame = ByteBuffer.allocate(LENGTH_PREFIX_BYTES + length);
+        frame.putShort((short) length).put(TYPE_POSITION);
+        frame.put((byte) vehicleId.length).put(vehicleId);
+        frame.put((byte) driverId.length).put(driverId);
+        frame.putLong(recordedAtMillis);
+        frame.putInt((int) Math.round(point.getLatitude() * COORDINATE_SCALE));
+        frame.putInt((int) Math.round(point.getLongitude() * COORDINATE_SCALE));
+        frame.putShort((short) Math.round(point.getSpeed() * SPEED_SCALE));
+        return frame.array();
+    }
+
+    // Decode one frame body (the bytes after the length prefix). Throws IllegalArgumentException
+    // for unknown types or out-of-range values; buffer underflow means the length prefix was wrong.
+    public static Telemetry decode(ByteBuffer body) {
+        byte type = body.get();
+        if (type != TYPE_POSITION) {
+            throw new IllegalArgumentException("Unknown frame type " + type);
+        }
+        String vehicleId = readString(body);
+        if (vehicleId.isEmpty()) {
+            throw new IllegalArgumentException("vehicleId is required");
+        }
+        String driverId = readString(body);
+        long recordedAt = body.getLong();
+        double latitude = body.getInt() / COORDINATE_SCALE;
+        double longitude = body.getInt() / COORDINATE_SCALE;
+        double speed = Short.toUnsignedInt(body.getShort()) / SPEED_SCALE;
+        if (Math.abs(latitude) > 90 || Math.abs(longitude) > 180) {
+            throw new IllegalArgumentException("Coordinates out of range");
+        }
+
+        Telemetry point = new Telemetry(vehicleId, driverId.isEmpty() ? null : driverId, latitude, longitude, speed);
+        if (recordedAt != 0) {
+            point.setRecordedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(recordedAt), ZoneId.systemDefault()));
+        }
+        return point;
+    }
+
+    private static String readString(ByteBuffer body) {
+        int length = Byte.toUnsignedInt(body.get());
+        if (length == 0) {
+            return "";
+        }
+        byte[] raw = new byte[length];
+        body.get(raw);
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,178 @@
+package com.neurofleetx.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Concurrent uniform-grid spatial index of moving points, keyed by id.
+ *
+ * The world is cut into cells of a fixed number of degrees; each cell holds the ids (and
+ * coordinates) inside it. A radius query only visits cells overlapping the circle's bounding box
+ * and checks those candidates with the haversine distance, so its cost depends on local density,
+ * not on the total number of points. Updates move an id between two cells in O(1).
+ */
+public class GeoGridIndex {
+
+    private static final int LONGITUDE_CELLS_MAX = 1 << 20;
+
+    private final double cellDegrees;
+    private final int longitudeCells;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Map<String, Entry>> cells = new ConcurrentHashMap<>();
+
+    public GeoGridIndex(double cellDegrees) {
+        if (cellDegrees <= 0 || 360 / cellDegrees > LONGITUDE_CELLS_MAX) {
+            throw new IllegalArgumentException("Unsupported grid cell size: " + cellDegrees);
+        }
+        this.cellDegrees = cellDegrees;
+        this.longitudeCells = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    public static final class Match {
+        private final String id;
+        private final double distanceMeters;
+
+        Match(String id, double distanceMeters) {
+            this.id = id;
+            this.distanceMeters = distanceMeters;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public double getDistanceMeters() {
+            return distanceMeters;
+        }
+    }
+
+    private record Entry(double latitude, double longitude, long cell) {
+    }
+
+    public void update(String id, double latitude, double longitude) {
+        long cell = cellOf(latitude, longitude);
+        // compute() serializes concurrent updates of the same id, so it is never left in two cells
+        entries.compute(id, (key, previous) -> {
+            if (previous != null && previous.cell() != cell) {
+                removeFromCell(previous.cell(), id);
+            }
+            Entry entry = new Entry(latitude, longitude, cell);
+            addToCell(cell, id, entry);
+            return entry;
+        });
+    }
+
+    public void remove(String id) {
+        entries.computeIfPresent(id, (key, previous) -> {
+            removeFromCell(previous.cell(), id);
+            return null;
+        });
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Up to limit ids within radiusMeters of the point that pass the filter, nearest first.
+    // Cells are visited in rings around the point's cell, stopping once no farther ring can beat the
+    // current limit-th match, so small-limit queries touch only a few cells even in dense areas.
+    public List<Match> nearest(double latitude, double longitude, double radiusMeters, int limit, Predicate<String> filter) {
+        double latSpan = GeoUtils.metersToLatitudeDegrees(radiusMeters);
+        double minLat = Math.max(-90, latitude - latSpan);
+        double maxLat = Math.min(90, latitude + latSpan);
+
+        // Longitude degrees shrink with latitude; near the poles the box covers every longitude
+        double widestCos = Math.cos(Math.toRadians(Math.max(Math.abs(minLat), Math.abs(maxLat))));
+        double lonSpan = widestCos < 1e-9 ? 180 : Math.min(180, latSpan / widestCos);
+
+        // Columns are unwrapped here and wrapped per cell, so boxes across the antimeridian work
+        int minRow = row(minLat);
+        int maxRow = row(maxLat);
+        int firstColumn = column(longitude - lonSpan);
+        int lastColumn = firstColumn + Math.min(longitudeCells, column(longitude + lonSpan) - firstColumn + 1) - 1;
+        int centerRow = row(latitude);
+        int centerColumn = column(longitude);
+        int maxRing = Math.max(Math.max(centerRow - minRow, maxRow - centerRow),
+                Math.max(centerColumn - firstColumn, lastColumn - centerColumn));
+        // Narrowest cell side in the box, for a lower bound on the distance to each ring
+        double cellMeters = GeoUtils.haversineMeters(0, 0, cellDegrees * Math.max(widestCos, 0), 0);
+
+        PriorityQueue<Match> best = new PriorityQueue<>(Comparator.comparingDouble(Match::getDistanceMeters).reversed());
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (best.size() == limit && (ring - 1) * cellMeters > best.peek().getDistanceMeters()) {
+                break;
+            }
+            for (int row = Math.max(minRow, centerRow - ring); row <= Math.min(maxRow, centerRow + ring); row++) {
+                boolean edgeRow = Math.abs(row - centerRow) == ring;
+                int step = edgeRow ? 1 : 2 * ring;
+                for (int column = centerColumn - ring; column <= centerColumn + ring; column += Math.max(step, 1)) {
+                    if (column < firstColumn || column > lastColumn) {
+                        continue;
+                    }
+                    Map<String, Entry> members = cells.get(key(row, Math.floorMod(column, longitudeCells)));
+                    if (members != null) {
+                        collect(members, latitude, longitude, radiusMeters, limit, filter, best);
+                    }
+                }
+            }
+        }
+
+        List<Match> matches = new ArrayList<>(best);
+        matches.sort(Comparator.comparingDouble(Match::getDistanceMeters));
+        return matches;
+    }
+
+    private void collect(Map<String, Entry> members, double latitude, double longitude, double radiusMeters,
+                         int limit, Predicate<String> filter, PriorityQueue<Match> best) {
+        for (Map.Entry<String, Entry> member : members.entrySet()) {
+            Entry entry = member.getValue();
+            double distance = GeoUtils.haversineMeters(latitude, longitude, entry.latitude(), entry.longitude());
+            if (distance > radiusMeters || (best.size() == limit && distance >= best.peek().getDistanceMeters())) {
+                continue;
+            }
+            if (filter.test(member.getKey())) {
+                best.add(new Match(member.getKey(), distance));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+    }
+
+    // Adds and removals of a cell both run inside compute(), so an id is never added to a map that is being dropped
+    private void addToCell(long cell, String id, Entry entry) {
+        cells.compute(cell, (key, members) -> {
+            Map<String, Entry> updated = members != null ? members : new ConcurrentHashMap<>();
+            updated.put(id, entry);
+            return updated;
+        });
+    }
+
+    private void removeFromCell(long cell, String id) {
+        cells.computeIfPresent(cell, (key, members) -> {
+            members.remove(id);
+            return members.isEmpty() ? null : members;
+        });
+    }
+
+    private long cellOf(double latitude, double longitude) {
+        return key(row(latitude), Math.floorMod(column(longitude), longitudeCells));
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor((Math.max(-90, Math.min(90, latitude)) + 90) / cellDegrees);
+    }
+
+    private int column(double longitude) {
+        return (int) Math.floor((longitude + 180) / cellDegrees);
+    }
+
+    private static long key(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+}
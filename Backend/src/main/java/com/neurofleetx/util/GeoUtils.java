@@ -0,0 +1,53 @@
+package com.neurofleetx.util;
+
+/**
+ * Small spherical-earth helpers shared by tracking features. Distances are in metres.
+ */
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * EARTH_RADIUS_METERS;
+
+    private GeoUtils() {
+    }
+
+    public static void requireValidCoordinates(double latitude, double longitude) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Coordinates out of range");
+        }
+    }
+
+    // Great-circle distance between two points
+    public static double haversineMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    // Degrees of latitude spanned by a distance
+    public static double metersToLatitudeDegrees(double meters) {
+        return meters / METERS_PER_DEGREE;
+    }
+
+    // Distance from point P to segment AB, using a local equirectangular projection around A.
+    // Accurate to well under a metre for the segment lengths found in GPS tracks.
+    public static double distanceToSegmentMeters(double pLat, double pLon,
+                                                 double aLat, double aLon,
+                                                 double bLat, double bLon) {
+        double cosLat = Math.cos(Math.toRadians(aLat));
+        double px = (pLon - aLon) * cosLat * METERS_PER_DEGREE;
+        double py = (pLat - aLat) * METERS_PER_DEGREE;
+        double bx = (bLon - aLon) * cosLat * METERS_PER_DEGREE;
+        double by = (bLat - aLat) * METERS_PER_DEGREE;
+
+        double lengthSquared = bx * bx + by * by;
+        if (lengthSquared == 0) {
+            return Math.hypot(px, py);
+        }
+        double t = Math.max(0, Math.min(1, (px * bx + py * by) / lengthSquared));
+        return Math.hypot(px - t * bx, py - t * by);
+    }
+}
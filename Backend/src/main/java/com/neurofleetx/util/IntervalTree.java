@@ -0,0 +1,170 @@
+package com.neurofleetx.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Set of half-open intervals [start, end) keyed by id, answering overlap queries in O(log n + k).
+ *
+ * A treap ordered by (start, id) where every node also holds the largest end in its subtree, so a
+ * query skips any subtree whose intervals all end before the query starts. Not thread-safe.
+ */
+public class IntervalTree<T> {
+
+    private Node<T> root;
+    private int size;
+
+    private static final class Node<T> {
+        private final long start;
+        private final long end;
+        private final String id;
+        private final T value;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private long maxEnd;
+        private Node<T> left;
+        private Node<T> right;
+
+        Node(long start, long end, String id, T value) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.value = value;
+            this.maxEnd = end;
+        }
+    }
+
+    // The caller removes a previous interval with the same id first
+    public void add(String id, long start, long end, T value) {
+        Node<T> node = new Node<>(start, end, id, value);
+        Node<T>[] parts = split(root, start, id);
+        root = merge(merge(parts[0], node), parts[1]);
+        size++;
+    }
+
+    // start must be the one the interval was added with
+    public boolean remove(String id, long start) {
+        Node<T>[] lower = split(root, start, id);
+        // The upper part starts with the node itself if present; cut it off
+        Node<T>[] upper = splitFirst(lower[1], start, id);
+        root = merge(lower[0], upper[1]);
+        if (upper[0] != null) {
+            size--;
+            return true;
+        }
+        return false;
+    }
+
+    // Values of intervals overlapping [start, end) that pass the filter, in start order
+    public List<T> findOverlapping(long start, long end, Predicate<T> filter) {
+        List<T> matches = new ArrayList<>();
+        collect(root, start, end, filter, matches);
+        return matches;
+    }
+
+    public boolean anyOverlapping(long start, long end, Predicate<T> filter) {
+        return any(root, start, end, filter);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void collect(Node<T> node, long start, long end, Predicate<T> filter, List<T> matches) {
+        if (node == null || node.maxEnd <= start) {
+            return;
+        }
+        collect(node.left, start, end, filter, matches);
+        if (node.start >= end) {
+            // Everything to the right starts even later
+            return;
+        }
+        if (node.end > start && filter.test(node.value)) {
+            matches.add(node.value);
+        }
+        collect(node.right, start, end, filter, matches);
+    }
+
+    private boolean any(Node<T> node, long start, long end, Predicate<T> filter) {
+        if (node == null || node.maxEnd <= start) {
+            return false;
+        }
+        if (any(node.left, start, end, filter)) {
+            return true;
+        }
+        if (node.start >= end) {
+            return false;
+        }
+        return (node.end > start && filter.test(node.value)) || any(node.right, start, end, filter);
+    }
+
+    private static <T> int compare(Node<T> node, long start, String id) {
+        int byStart = Long.compare(node.start, start);
+        return byStart != 0 ? byStart : node.id.compareTo(id);
+    }
+
+    // [nodes before (start, id), nodes at or after it]
+    @SuppressWarnings("unchecked")
+    private static <T> Node<T>[] split(Node<T> node, long start, String id) {
+        if (node == null) {
+            return new Node[] {null, null};
+        }
+        if (compare(node, start, id) < 0) {
+            Node<T>[] parts = split(node.right, start, id);
+            node.right = parts[0];
+            update(node);
+            return new Node[] {node, parts[1]};
+        }
+        Node<T>[] parts = split(node.left, start, id);
+        node.left = parts[1];
+        update(node);
+        return new Node[] {parts[0], node};
+    }
+
+    // [nodes at or before (start, id), nodes after it]
+    @SuppressWarnings("unchecked")
+    private static <T> Node<T>[] splitFirst(Node<T> node, long start, String id) {
+        if (node == null) {
+            return new Node[] {null, null};
+        }
+        if (compare(node, start, id) <= 0) {
+            Node<T>[] parts = splitFirst(node.right, start, id);
+            node.right = parts[0];
+            update(node);
+            return new Node[] {node, parts[1]};
+        }
+        Node<T>[] parts = splitFirst(node.left, start, id);
+        node.left = parts[1];
+        update(node);
+        return new Node[] {parts[0], node};
+    }
+
+    private static <T> Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static <T> void update(Node<T> node) {
+        long maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+}
@@ -0,0 +1,47 @@
+package com.neurofleetx.util;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Date;
+
+/**
+ * Expiring leases stored as one MongoDB document per lease: {_id, owner, expiresAt}.
+ *
+ * Acquiring is a single conditional upsert that matches only a lease that has expired or is already
+ * ours; for a missing lease it inserts one, and while someone else holds it the insert collides on
+ * _id. Owners must renew before expiresAt, and lease lengths should exceed the clock skew between nodes.
+ */
+public final class MongoLeases {
+
+    // Leases that pick the one instance running a scheduled job
+    public static final String SCHEDULER_LEASES = "scheduler_leases";
+
+    private MongoLeases() {
+    }
+
+    // Takes or renews the lease for owner; false while another owner holds an unexpired one
+    public static boolean tryAcquire(MongoTemplate mongoTemplate, String collection, String id, String owner,
+                                     long leaseMillis) {
+        Date now = new Date();
+        Query available = new Query(Criteria.where("_id").is(id)
+                .orOperator(Criteria.where("expiresAt").lt(now), Criteria.where("owner").is(owner)));
+        Update take = new Update()
+                .set("owner", owner)
+                .set("expiresAt", new Date(now.getTime() + leaseMillis));
+        try {
+            mongoTemplate.upsert(available, take, collection);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    // Gives the lease up if owner still holds it; one taken over after expiring is left to its new owner
+    public static void release(MongoTemplate mongoTemplate, String collection, String id, String owner) {
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(id).and("owner").is(owner)), collection);
+    }
+}
@@ -0,0 +1,214 @@
+package com.neurofleetx.util;
+
+import com.neurofleetx.entity.Telemetry;
+import org.bson.types.ObjectId;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+import java.util.zip.CRC32;
+
+/**
+ * Columnar block encoding for archived telemetry of one vehicle.
+ *
+ * A block is a fixed header (magic, version, point count, body length, CRC32 of the body) followed by
+ * one column per field: ids, driver ids (dictionary encoded), timestamps, latitude, longitude and speed.
+ * Timestamps and coordinates are stored as zig-zag varint deltas from the previous point, so a GPS track
+ * sampled every few seconds costs a few bytes per point. Coordinates are kept to 1e-7 degrees (about 1 cm)
+ * and speed to 0.01.
+ */
+public final class TelemetrySegmentCodec {
+
+    public static final int HEADER_BYTES = 17;
+
+    private static final int MAGIC = 0x4E465441; // "NFTA"
+    private static final byte VERSION = 1;
+    private static final double COORDINATE_SCALE = 1e7;
+    private static final double SPEED_SCALE = 100;
+
+    private TelemetrySegmentCodec() {
+    }
+
+    // Encode points (all of the same vehicle) into one self-contained block
+    public static byte[] encode(List<Telemetry> points) {
+        Out body = new Out();
+
+        boolean objectIds = points.stream().allMatch(p -> p.getId() != null && ObjectId.isValid(p.getId()));
+        body.write(objectIds ? 1 : 0);
+        for (Telemetry point : points) {
+            if (objectIds) {
+                byte[] raw = new ObjectId(point.getId()).toByteArray();
+                body.write(raw, 0, raw.length);
+            } else {
+                body.writeString(point.getId());
+            }
+        }
+
+        // Drivers rarely change within a vehicle-day, so store each distinct id once; 0 means no driver
+        Map<String, Integer> drivers = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        for (Telemetry point : points) {
+            if (point.getDriverId() != null && !drivers.containsKey(point.getDriverId())) {
+                drivers.put(point.getDriverId(), dictionary.size() + 1);
+                dictionary.add(point.getDriverId());
+            }
+        }
+        body.writeVarLong(dictionary.size());
+        dictionary.forEach(body::writeString);
+        for (Telemetry point : points) {
+            body.writeVarLong(point.getDriverId() == null ? 0 : drivers.get(point.getDriverId()));
+        }
+
+        long previous = 0;
+        for (Telemetry point : points) {
+            long millis = point.getRecordedAt().toInstant(ZoneOffset.UTC).toEpochMilli();
+            body.writeZigZag(millis - previous);
+            previous = millis;
+        }
+        writeScaledColumn(body, points, Telemetry::getLatitude, COORDINATE_SCALE);
+        writeScaledColumn(body, points, Telemetry::getLongitude, COORDINATE_SCALE);
+        writeScaledColumn(body, points, Telemetry::getSpeed, SPEED_SCALE);
+
+        byte[] bytes = body.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+
+        ByteBuffer block = ByteBuffer.allocate(HEADER_BYTES + bytes.length);
+        block.putInt(MAGIC).put(VERSION).putInt(points.size()).putInt(bytes.length).putInt((int) crc.getValue());
+        block.put(bytes);
+        return block.array();
+    }
+
+    // Decode every complete block from the buffer's position to its limit. A torn block at the end
+    // (crash during append) is ignored; anything else that does not check out is an error.
+    public static List<Telemetry> decodeAll(ByteBuffer buffer, String vehicleId) {
+        List<Telemetry> points = new ArrayList<>();
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int start = buffer.position();
+            if (buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+                throw new IllegalStateException("Corrupt telemetry segment block at offset " + start);
+            }
+            int count = buffer.getInt();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length > buffer.remaining()) {
+                break;
+            }
+
+            ByteBuffer body = buffer.slice(buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            CRC32 crc = new CRC32();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                throw new IllegalStateException("Checksum mismatch in telemetry segment block at offset " + start);
+            }
+            decodeBlock(body, count, vehicleId, points);
+        }
+        return points;
+    }
+
+    private static void decodeBlock(ByteBuffer body, int count, String vehicleId, List<Telemetry> out) {
+        String[] ids = new String[count];
+        boolean objectIds = body.get() == 1;
+        for (int i = 0; i < count; i++) {
+            if (objectIds) {
+                byte[] raw = new byte[12];
+                body.get(raw);
+                ids[i] = new ObjectId(raw).toHexString();
+            } else {
+                ids[i] = readString(body);
+            }
+        }
+
+        String[] dictionary = new String[(int) readVarLong(body) + 1];
+        for (int i = 1; i < dictionary.length; i++) {
+            dictionary[i] = readString(body);
+        }
+        String[] driverIds = new String[count];
+        for (int i = 0; i < count; i++) {
+            driverIds[i] = dictionary[(int) readVarLong(body)];
+        }
+
+        long[] millis = readDeltaColumn(body, count);
+        long[] latitude = readDeltaColumn(body, count);
+        long[] longitude = readDeltaColumn(body, count);
+        long[] speed = readDeltaColumn(body, count);
+
+        for (int i = 0; i < count; i++) {
+            Telemetry point = new Telemetry(vehicleId, driverIds[i],
+                    latitude[i] / COORDINATE_SCALE, longitude[i] / COORDINATE_SCALE, speed[i] / SPEED_SCALE);
+            point.setId(ids[i]);
+            point.setRecordedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(millis[i]), ZoneOffset.UTC));
+            out.add(point);
+        }
+    }
+
+    private static void writeScaledColumn(Out body, List<Telemetry> points,
+                                          ToDoubleFunction<Telemetry> field, double scale) {
+        long previous = 0;
+        for (Telemetry point : points) {
+            long value = Math.round(field.applyAsDouble(point) * scale);
+            body.writeZigZag(value - previous);
+            previous = value;
+        }
+    }
+
+    private static long[] readDeltaColumn(ByteBuffer body, int count) {
+        long[] values = new long[count];
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            long raw = readVarLong(body);
+            previous += (raw >>> 1) ^ -(raw & 1);
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] raw = new byte[(int) readVarLong(buffer)];
+        buffer.get(raw);
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+    private static final class Out extends ByteArrayOutputStream {
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeString(String value) {
+            byte[] raw = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(raw.length);
+            write(raw, 0, raw.length);
+        }
+    }
+}
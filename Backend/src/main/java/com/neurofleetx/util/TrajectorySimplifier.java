@@ -0,0 +1,69 @@
+package com.neurofleetx.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Douglas-Peucker line simplification for GPS tracks. Keeps the first and last point and every
+ * point that deviates more than the tolerance (in metres) from the simplified line.
+ * Iterative, so long tracks cannot overflow the stack.
+ */
+public final class TrajectorySimplifier {
+
+    private TrajectorySimplifier() {
+    }
+
+    public static <T> List<T> simplify(List<T> points, double toleranceMeters,
+                                       ToDoubleFunction<T> latitude, ToDoubleFunction<T> longitude) {
+        int n = points.size();
+        if (n < 3 || toleranceMeters <= 0) {
+            return points;
+        }
+
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        for (int i = 0; i < n; i++) {
+            lat[i] = latitude.applyAsDouble(points.get(i));
+            lon[i] = longitude.applyAsDouble(points.get(i));
+        }
+
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+
+        Deque<int[]> segments = new ArrayDeque<>();
+        segments.push(new int[] {0, n - 1});
+        while (!segments.isEmpty()) {
+            int[] segment = segments.pop();
+            int start = segment[0];
+            int end = segment[1];
+
+            double maxDistance = -1;
+            int farthest = -1;
+            for (int i = start + 1; i < end; i++) {
+                double distance = GeoUtils.distanceToSegmentMeters(lat[i], lon[i], lat[start], lon[start], lat[end], lon[end]);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+            }
+
+            if (farthest != -1 && maxDistance > toleranceMeters) {
+                keep[farthest] = true;
+                segments.push(new int[] {start, farthest});
+                segments.push(new int[] {farthest, end});
+            }
+        }
+
+        List<T> simplified = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) {
+                simplified.add(points.get(i));
+            }
+        }
+        return simplified;
+    }
+}
@@ -1,4 +1,4 @@
-import React, { useEffect, useState, useCallback } from "react";
+import React, { useEffect, useState, useCallback, useRef } from "react";
 import { useAuth } from "../context/AuthContext";
 import { useData } from "../context/DataContext";
 import Navbar from "../components/Navbar";
@@ -24,6 +24,8 @@ const FleetDashboard = () => {
   const [assigningBookingId, setAssigningBookingId] = useState(null);
   const [selectedDriverForBooking, setSelectedDriverForBooking] = useState({});
   const [liveDrivers, setLiveDrivers] = useState([]);
+  const liveDriversRef = useRef([]);
+  const liveVersionRef = useRef(null);
 
   // Modal states
   const [showPasswordModal, setShowPasswordModal] = useState(false);
@@ -49,27 +51,106 @@ const FleetDashboard = () => {
     return () => clearInterval(t);
   }, []);
 
-  // Fetch live GPS-enabled drivers
+  // Fetch live GPS-enabled drivers; after the first load only the changes since the last version are fetched
   const fetchLiveDrivers = useCallback(async () => {
     try {
-      const response = await driversAPI.getLiveTracking();
-      const liveData = response.data?.data || response.data || [];
-      setLiveDrivers(liveData);
+      const response = await driversAPI.getLiveTracking(liveVersionRef.current);
+      const body = response.data || {};
+      const liveData = body.data || [];
+      if (body.full !== false) {
+        setLiveDrivers(liveData);
+      } else {
+        const changed = new globalThis.Map(liveData.map((d) => [d.id, d]));
+        const gone = new Set([...(body.removed || []), ...changed.keys()]);
+        setLiveDrivers((current) => [
+          ...current.filter((d) => !gone.has(d.id)),
+          ...liveData,
+        ]);
+      }
+      if (body.version != null) {
+        liveVersionRef.current = body.version;
+      }
       console.log(
         "📍 Live drivers updated:",
         liveData.length,
-        "drivers with GPS enabled"
+        body.full !== false ? "drivers with GPS enabled" : "changed drivers"
       );
     } catch (error) {
       console.error("Error fetching live drivers:", error);
     }
   }, []);
 
-  // Load live drivers on mount and refresh every 10 seconds
+  useEffect(() => {
+    liveDriversRef.current = liveDrivers;
+  }, [liveDrivers]);
+
+  // Load live drivers on mount, then apply pushed position updates.
+  // Falls back to polling every 10 seconds when the backend has no event stream.
   useEffect(() => {
     fetchLiveDrivers();
-    const interval = setInterval(fetchLiveDrivers, 10000); // Refresh every 10 seconds
-    return () => clearInterval(interval);
+
+    let interval = null;
+    const startPolling = () => {
+      if (!interval) {
+        interval = setInterval(fetchLiveDrivers, 10000);
+      }
+    };
+    if (typeof EventSource === "undefined") {
+      startPolling();
+      return () => clearInterval(interval);
+    }
+
+    let connected = false;
+    const source = new EventSource(driversAPI.liveTrackingStreamUrl());
+    source.onopen = () => {
+      // Resync after (re)connecting, updates may have been missed meanwhile
+      if (connected) {
+        fetchLiveDrivers();
+      }
+      connected = true;
+    };
+    source.addEventListener("positions", (event) => {
+      const updates = JSON.parse(event.data).filter((p) => p.type === "driver");
+      if (updates.length === 0) {
+        return;
+      }
+      // A driver just switched GPS on; load their profile
+      const unknownDriver = updates.some(
+        (p) => p.active && !liveDriversRef.current.some((d) => d.id === p.id)
+      );
+      setLiveDrivers((current) => {
+        const byId = new globalThis.Map(updates.map((p) => [p.id, p]));
+        const next = current
+          .filter((d) => byId.get(d.id)?.active !== false)
+          .map((d) => {
+            const p = byId.get(d.id);
+            return p
+              ? {
+                  ...d,
+                  latitude: p.latitude,
+                  longitude: p.longitude,
+                  currentSpeed: p.speed,
+                  lastLocationUpdate: p.recordedAt,
+                }
+              : d;
+          });
+        return next;
+      });
+      if (unknownDriver) {
+        fetchLiveDrivers();
+      }
+    });
+    source.onerror = () => {
+      if (!connected) {
+        source.close();
+        startPolling();
+      }
+    };
+
+    return () => {
+      source.close();
+      clearInterval(interval);
+    };
   }, [fetchLiveDrivers]);
 
   // Load settings from localStorage
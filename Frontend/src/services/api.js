@@ -54,6 +54,9 @@ export const authAPI = {
 export const vehiclesAPI = {
   getAll: () => api.get("/vehicles"),
   getById: (id) => api.get(`/vehicles/${id}`),
+  // Vehicles with no booking overlapping the window (ISO 8601 start/end)
+  getAvailable: (start, end) =>
+    api.get("/vehicles/available", { params: { start, end } }),
   create: (data) => api.post("/vehicles", data),
   update: (id, data) => api.put(`/vehicles/${id}`, data),
   delete: (id) => api.delete(`/vehicles/${id}`),
@@ -68,7 +71,13 @@ export const driversAPI = {
   delete: (id) => api.delete(`/drivers/${id}`),
   updateLocation: (id, locationData) =>
     api.post(`/drivers/${id}/update-location`, locationData),
-  getLiveTracking: () => api.get("/drivers/live-tracking"),
+  // Pass the version (an opaque cursor) from the previous response to get only the changes since then
+  getLiveTracking: (since) =>
+    api.get("/drivers/live-tracking", {
+      params: since != null ? { since } : {},
+    }),
+  // Server-Sent Events endpoint for position updates (used with EventSource)
+  liveTrackingStreamUrl: () => `${api.defaults.baseURL}/drivers/live-tracking/stream`,
   toggleGps: (id, gpsEnabled) =>
     api.post(`/drivers/${id}/toggle-gps`, { gpsEnabled }),
 };
@@ -136,6 +145,12 @@ export const bookingsAPI = {
   complete: (id) => api.put(`/bookings/${id}/complete`),
   cancel: (id) => api.put(`/bookings/${id}/cancel`),
   assignDriver: (id, data) => api.put(`/bookings/${id}/assign-driver`, data),
+  // Bulk variants: one request for many bookings, with a per-id outcome in response.data.results
+  confirmMany: (bookingIds) => api.put("/bookings/bulk/confirm", { bookingIds }),
+  cancelMany: (bookingIds) => api.put("/bookings/bulk/cancel", { bookingIds }),
+  assignDriverMany: (bookingIds, data) =>
+    api.put("/bookings/bulk/assign-driver", { ...data, bookingIds }),
+  deleteMany: (bookingIds) => api.post("/bookings/bulk/delete", { bookingIds }),
 };
 
 // Customers API